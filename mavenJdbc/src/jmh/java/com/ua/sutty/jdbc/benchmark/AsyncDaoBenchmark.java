@@ -0,0 +1,83 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.async.AsyncUserDao;
+import com.ua.sutty.jdbc.repository.async.BoundedDaoExecutor;
+import com.ua.sutty.jdbc.repository.async.ExecutorAsyncUserDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained load of {@value #CALLERS} concurrent callers against a pool of {@code poolSize} connections: the
+ * blocking {@link JdbcUserDao#findByLogin} contends on the pool, the asynchronous one queues on a
+ * {@link BoundedDaoExecutor} sized to the pool. Throughput mode gives sustained calls per second, sample mode the
+ * latency percentiles (p99 in the {@code p0.99} rows).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(AsyncDaoBenchmark.CALLERS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AsyncDaoBenchmark {
+
+    static final int CALLERS = 64;
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"8"})
+    public int poolSize;
+
+    @Param({"true", "false"})
+    public boolean virtualThreads;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private BoundedDaoExecutor executor;
+    private AsyncUserDao asyncUserDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        database.getDataSource().setMaxTotal(poolSize);
+        database.getDataSource().setMaxIdle(poolSize);
+        userDao = database.userDao();
+        executor = new BoundedDaoExecutor(poolSize, CALLERS, virtualThreads);
+        asyncUserDao = new ExecutorAsyncUserDao(userDao, executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.close();
+        database.close();
+    }
+
+    @Benchmark
+    public User blocking() {
+        return userDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public User async() {
+        return asyncUserDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users))).join();
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Private H2 database for one benchmark trial, in memory unless {@link #createOnDisk() on disk}, migrated by
+ * {@link SchemaMigrator} and seeded with {@code dataset.xml}-style rows: the three roles and {@code n} users named
+ * {@code user<i>}.
+ *
+ * <p>Benchmarks live in the {@code benchmark} profile and are run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserDaoBenchmark -p users=1000 -prof gc"}.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    public static final long ROLES = 3;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final int SEED_CHUNK = 10000;
+
+    private final BasicDataSource dataSource;
+
+    private BenchmarkDatabase(BasicDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public static BenchmarkDatabase create() throws SQLException {
+        return create(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param schemaVersion last migration to apply, e.g. {@code 1} for the tables without secondary indexes
+     */
+    public static BenchmarkDatabase create(int schemaVersion) throws SQLException {
+        return create("jdbc:h2:mem:benchmark" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1", schemaVersion);
+    }
+
+    /**
+     * A database in a temporary file that writes every commit through to disk, for benchmarks where the cost of a
+     * commit matters. {@link #close()} deletes the files.
+     */
+    public static BenchmarkDatabase createOnDisk() throws SQLException {
+        String file;
+        try {
+            file = Files.createTempDirectory("benchmark").resolve("benchmark" + DATABASES.incrementAndGet())
+                .toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return create("jdbc:h2:file:" + file + ";WRITE_DELAY=0", Integer.MAX_VALUE);
+    }
+
+    private static BenchmarkDatabase create(String url, int schemaVersion) throws SQLException {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUsername("");
+        dataSource.setPassword("");
+        dataSource.setMaxTotal(64);
+        dataSource.setMaxIdle(64);
+        dataSource.setPoolPreparedStatements(true);
+        dataSource.setMaxOpenPreparedStatements(100);
+        BenchmarkDatabase database = new BenchmarkDatabase(dataSource);
+        new SchemaMigrator(dataSource).migrate(schemaVersion);
+        return database;
+    }
+
+    public static String login(long index) {
+        return "user" + index;
+    }
+
+    public static String email(long index) {
+        return "user" + index + "@email.com";
+    }
+
+    public static User user(long index) {
+        return new User(login(index), "123", email(index), "first" + index, "last" + index,
+            new Date(315532800000L + index % 10000 * 86400000L), index % ROLES + 1);
+    }
+
+    public BasicDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public JdbcUserDao userDao() {
+        return new JdbcUserDao(dataSource, null);
+    }
+
+    public JdbcRoleDao roleDao() {
+        return new JdbcRoleDao(dataSource, null);
+    }
+
+    public BenchmarkDatabase seed(int users) {
+        roleDao().createAll(Arrays.asList(new Role("USER"), new Role("ADMIN"), new Role("MANAGER")));
+        JdbcUserDao userDao = userDao();
+        userDao.setBatchSize(1000);
+        userDao.setCommitInterval(SEED_CHUNK);
+        for (int from = 0; from < users; from += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(users, from + SEED_CHUNK); i++) {
+                chunk.add(user(i));
+            }
+            userDao.createAll(chunk);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS DELETE FILES");
+        } finally {
+            dataSource.close();
+        }
+    }
+
+}
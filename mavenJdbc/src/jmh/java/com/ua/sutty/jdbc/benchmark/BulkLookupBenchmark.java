@@ -0,0 +1,90 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving {@code keys} random logins by looping {@link JdbcUserDao#findByLogin} (one connection and commit
+ * each) against one {@link JdbcUserDao#findByLogins} call. Invocations rotate over {@value #KEY_SETS} key sets so
+ * H2 cannot answer from its cached result of the previous run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BulkLookupBenchmark {
+
+    private static final int KEY_SETS = 16;
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"10", "100", "500"})
+    public int keys;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private final List<List<String>> keySets = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        Random random = new Random(42);
+        for (int i = 0; i < KEY_SETS; i++) {
+            List<String> logins = new ArrayList<>(keys);
+            for (int j = 0; j < keys; j++) {
+                logins.add(BenchmarkDatabase.login(random.nextInt(users)));
+            }
+            keySets.add(logins);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public Map<String, User> loop() {
+        Map<String, User> found = new HashMap<>();
+        for (String login : nextKeys()) {
+            found.put(login, userDao.findByLogin(login));
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Map<String, User> bulk() {
+        return userDao.findByLogins(nextKeys());
+    }
+
+    private List<String> nextKeys() {
+        next = (next + 1) % KEY_SETS;
+        return keySets.get(next);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hourly sync of a search index over {@code users} users of which {@value #CHURN_PER_MILLE} per mille changed
+ * since the last run, nine in ten updated and one in ten removed: re-reading the table with
+ * {@link JdbcUserDao#findAll()}, against reading just the changes with {@link JdbcUserDao#findModifiedSince} in
+ * batches of {@value #BATCH}. Each iteration changes a fresh set of users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ChangeTrackingBenchmark {
+
+    private static final int CHURN_PER_MILLE = 1;
+    private static final int BATCH = 1000;
+
+    @Param({"1000000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private long nextId = 1;
+    private long watermark;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+    }
+
+    @Setup(Level.Iteration)
+    public void churn() {
+        Changes<User> changes = userDao.findModifiedSince(0, BATCH);
+        while (changes.hasMore()) {
+            changes = userDao.findModifiedSince(changes.getWatermark(), BATCH);
+        }
+        watermark = changes.getWatermark();
+        int changed = users / 1000 * CHURN_PER_MILLE;
+        for (int i = 0; i < changed; i++) {
+            long id = nextId++;
+            if (i % 10 == 0) {
+                User user = new User();
+                user.setId(id);
+                userDao.remove(user);
+            } else {
+                UserPatch patch = new UserPatch(id);
+                patch.setFirstName("changed" + id);
+                userDao.patch(patch);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDao.findAll();
+    }
+
+    @Benchmark
+    public int findModifiedSince() {
+        int count = 0;
+        Changes<User> changes;
+        long from = watermark;
+        do {
+            changes = userDao.findModifiedSince(from, BATCH);
+            count += changes.getModified().size() + changes.getRemovedIds().size();
+            from = changes.getWatermark();
+        } while (changes.hasMore());
+        return count;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Borrowing a connection the way {@code AbstractJdbcDao.createConnection} used to, reading the properties bundle and
+ * loading the driver on every call, against the pool bootstrapped once per bundle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    private static final String BUNDLE = "test";
+
+    private BenchmarkDatabase database;
+    private BasicDataSource legacyDataSource;
+    private JdbcUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create();
+        userDao = database.userDao();
+        legacyDataSource = new BasicDataSource();
+        legacyDataSource.setUrl(database.getDataSource().getUrl());
+        legacyDataSource.setUsername("");
+        legacyDataSource.setPassword("");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        legacyDataSource.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void perCallBootstrap() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(BUNDLE);
+        Class.forName(resourceBundle.getString(DataSourceFactory.DRIVER)).getDeclaredConstructor().newInstance();
+        try (Connection connection = legacyDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+        }
+    }
+
+    @Benchmark
+    public void sharedDataSource() throws Exception {
+        userDao.createConnection().close();
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.transaction.GroupCommitUserDao;
+import com.ua.sutty.jdbc.repository.transaction.GroupCommitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A signup spike: every benchmark thread creates new users, each {@link JdbcUserDao#create} paying its own commit,
+ * against the same calls coalesced by a {@link GroupCommitUserDao}. Throughput mode gives writes per second, sample
+ * mode the latency percentiles (p99 in the {@code p0.99} rows). The number of writers is the JMH thread count,
+ * e.g. {@code -t 1}, {@code -t 16} or {@code -t 256}; the commits the grouped writers paid are printed per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GroupCommitBenchmark {
+
+    private static final AtomicLong USERS = new AtomicLong();
+
+    @Param({"true", "false"})
+    public boolean onDisk;
+
+    @Param({"256"})
+    public int maxBatchSize;
+
+    @Param({"0", "2"})
+    public long maxDelayMillis;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private GroupCommitter committer;
+    private GroupCommitUserDao groupDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = onDisk ? BenchmarkDatabase.createOnDisk() : BenchmarkDatabase.create();
+        database.seed(0);
+        userDao = database.userDao();
+        committer = new GroupCommitter(database.getDataSource(), maxBatchSize, maxDelayMillis, TimeUnit.MILLISECONDS);
+        groupDao = new GroupCommitUserDao(userDao, committer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        committer.close();
+        if (committer.getWriteCount() > 0) {
+            System.out.printf("%n%d grouped writes in %d commits, %.1f per commit%n", committer.getWriteCount(),
+                committer.getGroupCount(), (double) committer.getWriteCount() / committer.getGroupCount());
+        }
+        database.close();
+    }
+
+    @Benchmark
+    public Long perCall() {
+        return userDao.create(nextUser());
+    }
+
+    @Benchmark
+    public Long grouped() {
+        return groupDao.create(nextUser());
+    }
+
+    private static User nextUser() {
+        return BenchmarkDatabase.user(USERS.incrementAndGet());
+    }
+
+}
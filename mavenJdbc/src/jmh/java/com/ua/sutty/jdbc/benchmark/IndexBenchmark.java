@@ -0,0 +1,73 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency with the schema at version 1 (primary keys and the role name index only) against the latest
+ * version with the user indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class IndexBenchmark {
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"1", "2"})
+    public int schemaVersion;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private JdbcRoleDao roleDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create(schemaVersion).seed(users);
+        userDao = database.userDao();
+        roleDao = database.roleDao();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public User findByLogin() {
+        return userDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userDao.findByEmail(BenchmarkDatabase.email(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public Role findByName() {
+        return roleDao.findByName("MANAGER");
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.metrics.DaoMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of reporting every call to {@link DaoMetrics} on a point lookup and on a page read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InstrumentationBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        if (instrumented) {
+            userDao.setInstrumentation(new DaoMetrics());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public User findByLogin() {
+        return userDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return userDao.findPage((long) ThreadLocalRandom.current().nextInt(users - 100), 100).getItems();
+    }
+
+}
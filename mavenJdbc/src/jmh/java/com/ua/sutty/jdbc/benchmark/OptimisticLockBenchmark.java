@@ -0,0 +1,121 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.UserRowMapper;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent admin edits of {@code hotUsers} users: a read-modify-write serialized by
+ * {@code SELECT ... FOR UPDATE} inside {@link TransactionTemplate}, against a versioned read and
+ * {@link JdbcUserDao#update} retried on {@link OptimisticLockException}. The {@code conflicts} counter reports the
+ * retries the optimistic writers paid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OptimisticLockBenchmark {
+
+    private static final String SELECT_FOR_UPDATE = "SELECT * FROM user WHERE login = ? FOR UPDATE";
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"1", "16", "1000"})
+    public int hotUsers;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        transactionTemplate = new TransactionTemplate(database.getDataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retries {
+
+        public long conflicts;
+
+    }
+
+    @Benchmark
+    public User pessimistic() {
+        String login = nextLogin();
+        return transactionTemplate.execute(context -> {
+            User user;
+            try (PreparedStatement pst = context.getConnection().prepareStatement(SELECT_FOR_UPDATE)) {
+                pst.setString(1, login);
+                try (ResultSet rs = pst.executeQuery()) {
+                    rs.next();
+                    user = new UserRowMapper(rs).mapRow(rs);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            edit(user);
+            user.setVersion(null);
+            userDao.update(user);
+            return user;
+        });
+    }
+
+    @Benchmark
+    public User optimistic(Retries retries) {
+        String login = nextLogin();
+        while (true) {
+            User user = userDao.findByLogin(login);
+            edit(user);
+            try {
+                userDao.update(user);
+                return user;
+            } catch (OptimisticLockException e) {
+                retries.conflicts++;
+            }
+        }
+    }
+
+    private String nextLogin() {
+        return BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(hotUsers));
+    }
+
+    private static void edit(User user) {
+        user.setFirstName("first" + ThreadLocalRandom.current().nextInt());
+    }
+
+}
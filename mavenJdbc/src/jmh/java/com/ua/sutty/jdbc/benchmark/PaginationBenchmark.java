@@ -0,0 +1,134 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.Page;
+import com.ua.sutty.jdbc.repository.PageCursor;
+import com.ua.sutty.jdbc.repository.UserSort;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of fetching page {@code page} (of {@code limit} rows) with keyset pagination against the same page
+ * fetched with {@code LIMIT ? OFFSET ?}. Each invocation rotates over {@value #PAGES} consecutive pages because
+ * H2 hands back the cached result when a prepared query is re-run with identical parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PaginationBenchmark {
+
+    private static final String OFFSET_BY_ID = "SELECT * FROM user ORDER BY id LIMIT ? OFFSET ?";
+    private static final String OFFSET_BY_LOGIN = "SELECT * FROM user ORDER BY login NULLS FIRST, id LIMIT ? OFFSET ?";
+    private static final String CURSOR_BY_LOGIN = "SELECT login, id FROM user ORDER BY login NULLS FIRST, id LIMIT 1 OFFSET ?";
+
+    private static final int PAGES = 16;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"1", "100", "9000"})
+    public int page;
+
+    @Param({"100"})
+    public int limit;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private final PageCursor[] idCursors = new PageCursor[PAGES];
+    private final PageCursor[] loginCursors = new PageCursor[PAGES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        try (Connection connection = database.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(CURSOR_BY_LOGIN)) {
+            for (int i = 0; i < PAGES; i++) {
+                long offset = offset(i);
+                if (offset == 0) {
+                    continue;
+                }
+                idCursors[i] = PageCursor.afterId(offset);
+                statement.setLong(1, offset - 1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    loginCursors[i] = new PageCursor(UserSort.LOGIN, resultSet.getString(1), resultSet.getLong(2));
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public Page<User> keysetById() {
+        return userDao.findPage(UserSort.ID, idCursors[nextPage()], limit);
+    }
+
+    @Benchmark
+    public List<Long> offsetById() throws SQLException {
+        return offsetPage(OFFSET_BY_ID);
+    }
+
+    @Benchmark
+    public Page<User> keysetByLogin() {
+        return userDao.findPage(UserSort.LOGIN, loginCursors[nextPage()], limit);
+    }
+
+    @Benchmark
+    public List<Long> offsetByLogin() throws SQLException {
+        return offsetPage(OFFSET_BY_LOGIN);
+    }
+
+    private int nextPage() {
+        next = (next + 1) % PAGES;
+        return next;
+    }
+
+    private long offset(int index) {
+        return (long) (page - 1 + index) * limit;
+    }
+
+    private List<Long> offsetPage(String query) throws SQLException {
+        List<Long> ids = new ArrayList<>(limit);
+        try (Connection connection = database.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, limit);
+            statement.setLong(2, offset(nextPage()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(User.ID));
+                }
+            }
+        }
+        return ids;
+    }
+
+}
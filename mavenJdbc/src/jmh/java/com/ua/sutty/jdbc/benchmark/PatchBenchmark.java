@@ -0,0 +1,80 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changing one field of a random user: {@link JdbcUserDao#update} of the whole row, {@link JdbcUserDao#patch} of
+ * the changed column and the {@link JdbcUserDao#setRole} fast path. The user is built in memory so only the write
+ * is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PatchBenchmark {
+
+    @Param({"10000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public User update() {
+        int index = ThreadLocalRandom.current().nextInt(users);
+        User user = BenchmarkDatabase.user(index);
+        user.setId(index + 1L);
+        user.setRoleId(nextRole());
+        userDao.update(user);
+        return user;
+    }
+
+    @Benchmark
+    public UserPatch patch() {
+        UserPatch patch = new UserPatch(ThreadLocalRandom.current().nextInt(users) + 1L);
+        patch.setRoleId(nextRole());
+        userDao.patch(patch);
+        return patch;
+    }
+
+    @Benchmark
+    public void setRole() {
+        userDao.setRole(ThreadLocalRandom.current().nextInt(users) + 1L, nextRole());
+    }
+
+    private static long nextRole() {
+        return ThreadLocalRandom.current().nextLong(BenchmarkDatabase.ROLES) + 1;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.UserQuery;
+import com.ua.sutty.jdbc.repository.UserSort;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A search screen asking for the first {@value #LIMIT} users of a role born in a given year whose login starts with
+ * a random two-digit prefix: {@link JdbcUserDao#findAll()} filtered and sorted in memory, against
+ * {@link JdbcUserDao#find(UserQuery)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QueryBenchmark {
+
+    private static final int LIMIT = 50;
+    private static final Date FROM = Date.valueOf("1980-01-01");
+    private static final Date TO = Date.valueOf("1980-12-31");
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> findAllThenFilter() {
+        String prefix = nextPrefix();
+        return userDao.findAll().stream()
+            .filter(user -> user.getLogin().startsWith(prefix))
+            .filter(user -> user.getRoleId() == 2L)
+            .filter(user -> !user.getBirthday().before(FROM) && !user.getBirthday().after(TO))
+            .sorted(Comparator.comparing(User::getLogin).thenComparing(User::getId))
+            .limit(LIMIT)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<User> find() {
+        UserQuery query = new UserQuery();
+        query.setLoginPrefix(nextPrefix());
+        query.setRoleId(2L);
+        query.setBornFrom(FROM);
+        query.setBornTo(TO);
+        query.setSort(UserSort.LOGIN);
+        query.setLimit(LIMIT);
+        return userDao.find(query).getItems();
+    }
+
+    private static String nextPrefix() {
+        return "user" + (10 + ThreadLocalRandom.current().nextInt(90));
+    }
+
+}
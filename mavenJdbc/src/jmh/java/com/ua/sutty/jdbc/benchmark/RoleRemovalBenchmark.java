@@ -0,0 +1,129 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.metrics.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removing a role with {@code roleUsers} users while another thread keeps logging the {@code users} other users
+ * in with {@link JdbcUserDao#findByLogin}: {@link JdbcRoleDao#remove} in one transaction against
+ * {@link JdbcRoleDao#removeInChunks} with chunks of {@code chunkSize}. The score is the time of the removal; the
+ * latency of the concurrent logins is printed per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RoleRemovalBenchmark {
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"200000"})
+    public int roleUsers;
+
+    @Param({"5000"})
+    public int chunkSize;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private JdbcRoleDao roleDao;
+    private Role role;
+    private final Histogram logins = new Histogram();
+    private volatile boolean removing;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        roleDao = database.roleDao();
+        roleDao.setCommitInterval(chunkSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void createRole() {
+        role = new Role("REMOVED" + System.nanoTime());
+        roleDao.create(role);
+        JdbcUserDao seeder = database.userDao();
+        seeder.setBatchSize(1000);
+        seeder.setCommitInterval(10000);
+        List<User> chunk = new ArrayList<>();
+        for (int i = 0; i < roleUsers; i++) {
+            chunk.add(new User(role.getName() + "-" + i, "123", role.getName() + "-" + i + "@email.com", "first",
+                "last", Date.valueOf("1990-01-01"), role.getId()));
+            if (chunk.size() == 10000 || i == roleUsers - 1) {
+                seeder.createAll(chunk);
+                chunk.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.out.printf("%nconcurrent findByLogin: %s%n", logins.snapshot());
+        database.close();
+    }
+
+    @Benchmark
+    public Role remove() throws InterruptedException {
+        Thread reader = startReader();
+        try {
+            roleDao.remove(role);
+        } finally {
+            stop(reader);
+        }
+        return role;
+    }
+
+    @Benchmark
+    public long removeInChunks() throws InterruptedException {
+        Thread reader = startReader();
+        try {
+            return roleDao.removeInChunks(role, null);
+        } finally {
+            stop(reader);
+        }
+    }
+
+    private Thread startReader() {
+        removing = true;
+        Thread reader = new Thread(() -> {
+            while (removing) {
+                long start = System.nanoTime();
+                userDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users)));
+                logins.record(System.nanoTime() - start);
+            }
+        });
+        reader.start();
+        return reader;
+    }
+
+    private void stop(Thread reader) throws InterruptedException {
+        removing = false;
+        reader.join();
+    }
+
+}
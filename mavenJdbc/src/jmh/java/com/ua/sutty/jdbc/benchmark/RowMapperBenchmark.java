@@ -0,0 +1,102 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.RowMapper;
+import com.ua.sutty.jdbc.repository.UserRowMapper;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the whole {@code user} table: mapping every row by column label (the previous
+ * {@code JdbcUserDao.mapUser}) against {@link UserRowMapper}, which resolves indexes once per result set, and the
+ * complete {@link JdbcUserDao#findAll()}. Divide by {@code users} for the per-row cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RowMapperBenchmark {
+
+    private static final String GET_ALL_USERS = "SELECT * FROM user";
+
+    private static final RowMapper<User> BY_NAME = rs -> {
+        User user = new User();
+        user.setId(rs.getLong(User.ID));
+        user.setLogin(rs.getString(User.LOGIN));
+        user.setPassword(rs.getString(User.PASSWORD));
+        user.setEmail(rs.getString(User.EMAIL));
+        user.setFirstName(rs.getString(User.FIRST_NAME));
+        user.setLastName(rs.getString(User.LAST_NAME));
+        user.setBirthday(rs.getDate(User.BIRTHDAY));
+        user.setRoleId(rs.getLong(User.ROLE_ID));
+        return user;
+    };
+
+    @Param({"1000000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public void mapByName(Blackhole blackhole) throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(GET_ALL_USERS)) {
+            while (rs.next()) {
+                blackhole.consume(BY_NAME.mapRow(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapByIndex(Blackhole blackhole) throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(GET_ALL_USERS)) {
+            RowMapper<User> rowMapper = new UserRowMapper(rs);
+            while (rs.next()) {
+                blackhole.consume(rowMapper.mapRow(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDao.findAll();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One {@link JdbcUserDao} shared by 1, 8 and 64 threads. The DAO keeps no per-call state, so the aggregate
+ * throughput should grow with the thread count until the pool, the database or the cores run out; it must not
+ * collapse the way a DAO serialised on a shared connection does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SharedDaoBenchmark {
+
+    private static final int USERS = 10000;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private final AtomicLong created = new AtomicLong(USERS);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(USERS);
+        userDao = database.userDao();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public User findByLogin1() {
+        return findByLogin();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public User findByLogin8() {
+        return findByLogin();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public User findByLogin64() {
+        return findByLogin();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public User create1() {
+        return create();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public User create8() {
+        return create();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public User create64() {
+        return create();
+    }
+
+    private User findByLogin() {
+        return userDao.findByLogin(BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    private User create() {
+        User user = BenchmarkDatabase.user(created.getAndIncrement());
+        userDao.create(user);
+        return user;
+    }
+
+}
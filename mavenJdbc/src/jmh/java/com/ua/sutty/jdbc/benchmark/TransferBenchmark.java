@@ -0,0 +1,125 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.repository.transfer.JdbcDataTransfer;
+import com.ua.sutty.jdbc.repository.transfer.TransferFormat;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting and re-importing {@code users} users through {@link JdbcDataTransfer} in each {@link TransferFormat},
+ * and through DbUnit's {@link FlatXmlDataSet} ({@code format=DBUNIT}), which is what staging was seeded with
+ * before. Every import starts from empty tables; the file size of each format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransferBenchmark {
+
+    private static final String DBUNIT = "DBUNIT";
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"CSV", "BINARY", "FLAT_XML", "DBUNIT"})
+    public String format;
+
+    private BenchmarkDatabase source;
+    private BenchmarkDatabase target;
+    private Path exported;
+    private Path scratch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        source = BenchmarkDatabase.create().seed(users);
+        target = BenchmarkDatabase.create();
+        exported = Files.createTempFile("transfer", "." + format.toLowerCase());
+        scratch = Files.createTempFile("transfer-scratch", "." + format.toLowerCase());
+        export(source, exported);
+        System.out.printf("%n%s export of %d users: %d bytes%n", format, users, Files.size(exported));
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTarget() throws Exception {
+        try (Connection connection = target.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE user");
+            statement.execute("TRUNCATE TABLE role");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        source.close();
+        target.close();
+        Files.deleteIfExists(exported);
+        Files.deleteIfExists(scratch);
+    }
+
+    @Benchmark
+    public Path exportTo() throws Exception {
+        export(source, scratch);
+        return scratch;
+    }
+
+    @Benchmark
+    public BenchmarkDatabase importFrom() throws Exception {
+        if (DBUNIT.equals(format)) {
+            try (Connection connection = target.getDataSource().getConnection();
+                 InputStream in = Files.newInputStream(exported)) {
+                IDataSet dataSet = new FlatXmlDataSetBuilder().setColumnSensing(true).build(in);
+                DatabaseOperation.INSERT.execute(new DatabaseConnection(connection), dataSet);
+                connection.commit();
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(exported)) {
+                new JdbcDataTransfer(target.getDataSource(), null).importFrom(channel, TransferFormat.valueOf(format));
+            }
+        }
+        return target;
+    }
+
+    private void export(BenchmarkDatabase database, Path file) throws Exception {
+        if (DBUNIT.equals(format)) {
+            try (Connection connection = database.getDataSource().getConnection();
+                 OutputStream out = Files.newOutputStream(file)) {
+                FlatXmlDataSet.write(new DatabaseConnection(connection).createDataSet(new String[]{"role", "user"}),
+                    out);
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                new JdbcDataTransfer(database.getDataSource(), null).exportTo(channel, TransferFormat.valueOf(format));
+            }
+        }
+    }
+
+}
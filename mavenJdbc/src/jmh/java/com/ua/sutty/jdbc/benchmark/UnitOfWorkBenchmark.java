@@ -0,0 +1,77 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service call from the unit of work request: {@code findByLogin} + {@code RoleDao.findByName} +
+ * {@code update}, once as three independent DAO calls and once inside {@link TransactionTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UnitOfWorkBenchmark {
+
+    private static final String[] ROLES = {"USER", "ADMIN", "MANAGER"};
+
+    @Param({"1000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private JdbcRoleDao roleDao;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        roleDao = database.roleDao();
+        transactionTemplate = new TransactionTemplate(database.getDataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public User separateCalls() {
+        return changeRole();
+    }
+
+    @Benchmark
+    public User unitOfWork() {
+        return transactionTemplate.execute(context -> changeRole());
+    }
+
+    private User changeRole() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = userDao.findByLogin(BenchmarkDatabase.login(random.nextInt(users)));
+        user.setRoleId(roleDao.findByName(ROLES[random.nextInt(ROLES.length)]).getId());
+        userDao.update(user);
+        return user;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserDaoBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        created.set(users);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Removable {
+
+        private static final int CHUNK = 1000;
+
+        private final ArrayDeque<User> queue = new ArrayDeque<>();
+
+        User next(UserDaoBenchmark benchmark) {
+            if (queue.isEmpty()) {
+                List<User> chunk = new ArrayList<>(CHUNK);
+                for (int i = 0; i < CHUNK; i++) {
+                    chunk.add(BenchmarkDatabase.user(benchmark.created.getAndIncrement()));
+                }
+                benchmark.userDao.createAll(chunk);
+                queue.addAll(chunk);
+            }
+            return queue.poll();
+        }
+
+    }
+
+    @Benchmark
+    public User create() {
+        User user = BenchmarkDatabase.user(created.getAndIncrement());
+        userDao.create(user);
+        return user;
+    }
+
+    /**
+     * Inserts {@value #BATCH} users per call; divide by it to compare with {@link #create()}, one commit per row.
+     */
+    @Benchmark
+    public List<Long> createAll() {
+        List<User> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(BenchmarkDatabase.user(created.getAndIncrement()));
+        }
+        return userDao.createAll(batch);
+    }
+
+    @Benchmark
+    public User update() {
+        long index = randomIndex();
+        User user = BenchmarkDatabase.user(index);
+        user.setId(index + 1);
+        user.setFirstName("updated" + index);
+        userDao.update(user);
+        return user;
+    }
+
+    /**
+     * Removes rows created in chunks of {@value Removable#CHUNK} via {@code createAll}; the amortised refill is
+     * part of the measurement.
+     */
+    @Benchmark
+    public User remove(Removable removable) {
+        User user = removable.next(this);
+        userDao.remove(user);
+        return user;
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDao.findAll();
+    }
+
+    @Benchmark
+    public User findByLogin() {
+        return userDao.findByLogin(BenchmarkDatabase.login(randomIndex()));
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userDao.findByEmail(BenchmarkDatabase.email(randomIndex()));
+    }
+
+    private long randomIndex() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+
+}
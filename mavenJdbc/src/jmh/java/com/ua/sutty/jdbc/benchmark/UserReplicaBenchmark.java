@@ -0,0 +1,127 @@
+package com.ua.sutty.jdbc.benchmark;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.replica.UserReplica;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Authentication lookups by login against {@code users} users: {@link JdbcUserDao#findByLogin}, a
+ * {@link UserReplica} loaded from it, and a {@code HashMap<String, User>} holding the same users. The retained heap
+ * of the replica and of the map, measured as the used heap after GC before and after building each, is printed per
+ * trial together with the replica's own {@link UserReplica#getFootprintBytes() accounting}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserReplicaBenchmark {
+
+    @Param({"1000000"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private JdbcUserDao userDao;
+    private UserReplica replica;
+    private Map<String, User> map;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.create().seed(users);
+        userDao = database.userDao();
+        try (Stream<User> all = userDao.streamAll()) {
+            all.forEach(user -> { });
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        replica = new UserReplica();
+        userDao.setWriteListener(replica);
+        replica.load(userDao);
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long replicaBytes = usedHeap() - before;
+
+        before = usedHeap();
+        map = new HashMap<>();
+        try (Stream<User> all = userDao.streamAll()) {
+            all.forEach(user -> map.put(user.getLogin(), detached(user)));
+        }
+        long mapBytes = usedHeap() - before;
+
+        System.out.printf("%nreplica: loaded in %d ms, %d bytes retained (%.0f per user), %d bytes of arrays%n",
+            loadMillis, replicaBytes, (double) replicaBytes / users, replica.getFootprintBytes());
+        System.out.printf("HashMap<String, User>: %d bytes retained (%.0f per user)%n", mapBytes,
+            (double) mapBytes / users);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public User jdbc() {
+        return userDao.findByLogin(nextLogin());
+    }
+
+    @Benchmark
+    public User replica() {
+        return replica.findByLogin(nextLogin());
+    }
+
+    @Benchmark
+    public User hashMap() {
+        return map.get(nextLogin());
+    }
+
+    private String nextLogin() {
+        return BenchmarkDatabase.login(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    /**
+     * The in-memory database hands out the very strings its rows hold; a copy stands for what a driver reading
+     * from a database server would allocate.
+     */
+    private static User detached(User user) {
+        User copy = new User(user.getId(), new String(user.getLogin()), new String(user.getPassword()),
+            new String(user.getEmail()), copyOf(user.getFirstName()), copyOf(user.getLastName()),
+            user.getBirthday() == null ? null : new Date(user.getBirthday().getTime()), user.getRoleId());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    private static String copyOf(String value) {
+        return value == null ? null : new String(value);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -4,9 +4,11 @@ public class Role {
 
     public static final String ID = "id";
     public static final String NAME = "name";
+    public static final String VERSION = "version";
 
     private Long id;
     private String name;
+    private Long version;
 
     public Role() {
     }
@@ -20,6 +22,11 @@ public class Role {
         this.name = name;
     }
 
+    public Role(Role role) {
+        this(role.id, role.name);
+        this.version = role.version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -36,5 +43,16 @@ public class Role {
         this.name = name;
     }
 
-}
+    /**
+     * Returns the row version this role was read at, or {@code null} for an unversioned role whose updates
+     * overwrite the row unconditionally.
+     */
+    public Long getVersion() {
+        return version;
+    }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+}
@@ -13,6 +13,7 @@ public class User {
     public static final String LAST_NAME = "last_name";
     public static final String BIRTHDAY = "birthday";
     public static final String ROLE_ID = "role_id";
+    public static final String VERSION = "version";
 
     private Long id;
     private String login;
@@ -22,6 +23,7 @@ public class User {
     private String lastName;
     private Date birthday;
     private Long roleId;
+    private Long version;
 
     public User() {
     }
@@ -47,6 +49,11 @@ public class User {
         this.roleId = roleId;
     }
 
+    public User(User user) {
+        this(user.id, user.login, user.password, user.email, user.firstName, user.lastName, user.birthday, user.roleId);
+        this.version = user.version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -111,5 +118,16 @@ public class User {
         this.roleId = roleId;
     }
 
-}
+    /**
+     * Returns the row version this user was read at, or {@code null} for an unversioned user whose updates
+     * overwrite the row unconditionally.
+     */
+    public Long getVersion() {
+        return version;
+    }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.ua.sutty.jdbc.domain;
+
+import java.sql.Date;
+import java.util.Objects;
+
+/**
+ * The changed fields of one user. Each setter marks its field in {@link #getChanged()}, and only marked columns are
+ * written. A patch carrying a {@link #getVersion() version} is applied only to a row still at that version, like a
+ * versioned {@link User}.
+ */
+public class UserPatch {
+
+    public static final int LOGIN = 1;
+    public static final int PASSWORD = 1 << 1;
+    public static final int EMAIL = 1 << 2;
+    public static final int FIRST_NAME = 1 << 3;
+    public static final int LAST_NAME = 1 << 4;
+    public static final int BIRTHDAY = 1 << 5;
+    public static final int ROLE_ID = 1 << 6;
+
+    /**
+     * Number of patchable fields; every mask of changed fields is below {@code 1 << FIELDS}.
+     */
+    public static final int FIELDS = 7;
+
+    private final Long id;
+    private Long version;
+    private int changed;
+    private String login;
+    private String password;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Date birthday;
+    private Long roleId;
+
+    public UserPatch(Long id) {
+        this.id = id;
+    }
+
+    public UserPatch(Long id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public UserPatch(UserPatch patch) {
+        this(patch.id, patch.version);
+        this.changed = patch.changed;
+        this.login = patch.login;
+        this.password = patch.password;
+        this.email = patch.email;
+        this.firstName = patch.firstName;
+        this.lastName = patch.lastName;
+        this.birthday = patch.birthday;
+        this.roleId = patch.roleId;
+    }
+
+    /**
+     * Returns a patch of the fields of {@code changed} that differ from {@code original}, at the id and version of
+     * {@code original}.
+     */
+    public static UserPatch diff(User original, User changed) {
+        if (original == null || changed == null) {
+            throw new NullPointerException();
+        }
+        UserPatch patch = new UserPatch(original.getId(), original.getVersion());
+        if (!Objects.equals(original.getLogin(), changed.getLogin())) {
+            patch.setLogin(changed.getLogin());
+        }
+        if (!Objects.equals(original.getPassword(), changed.getPassword())) {
+            patch.setPassword(changed.getPassword());
+        }
+        if (!Objects.equals(original.getEmail(), changed.getEmail())) {
+            patch.setEmail(changed.getEmail());
+        }
+        if (!Objects.equals(original.getFirstName(), changed.getFirstName())) {
+            patch.setFirstName(changed.getFirstName());
+        }
+        if (!Objects.equals(original.getLastName(), changed.getLastName())) {
+            patch.setLastName(changed.getLastName());
+        }
+        if (!Objects.equals(original.getBirthday(), changed.getBirthday())) {
+            patch.setBirthday(changed.getBirthday());
+        }
+        if (!Objects.equals(original.getRoleId(), changed.getRoleId())) {
+            patch.setRoleId(changed.getRoleId());
+        }
+        return patch;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the bits ({@link #LOGIN}, {@link #PASSWORD}, ...) of the fields set on this patch.
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    public boolean isChanged(int field) {
+        return (changed & field) != 0;
+    }
+
+    public boolean isEmpty() {
+        return changed == 0;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+        changed |= LOGIN;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+        changed |= PASSWORD;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        changed |= EMAIL;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+        changed |= FIRST_NAME;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+        changed |= LAST_NAME;
+    }
+
+    public Date getBirthday() {
+        return birthday;
+    }
+
+    public void setBirthday(Date birthday) {
+        this.birthday = birthday;
+        changed |= BIRTHDAY;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+        changed |= ROLE_ID;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.ua.sutty.jdbc.domain;
+
+/**
+ * Read model of a user together with its role, fetched in one query. Users read together share one {@link Role}
+ * instance per role id.
+ */
+public class UserWithRole {
+
+    private final User user;
+    private final Role role;
+
+    public UserWithRole(User user, Role role) {
+        this.user = user;
+        this.role = role;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return the role, or {@code null} when the user has none
+     */
+    public Role getRole() {
+        return role;
+    }
+
+}
@@ -1,14 +1,46 @@
 package com.ua.sutty.jdbc.repository;
 
+import com.ua.sutty.jdbc.repository.metrics.DaoInstrumentation;
+import com.ua.sutty.jdbc.repository.metrics.InstrumentedConnection;
+import com.ua.sutty.jdbc.repository.transaction.TransactionContext;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
 import org.apache.commons.dbcp2.BasicDataSource;
 
 import java.sql.*;
-import java.util.ResourceBundle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public abstract class AbstractJdbcDao {
 
-    private BasicDataSource basicDataSource = null;
-    private String dataSource = "h2";
+    private static final int[] IN_LIST_SIZES = {1, 8, 32, 128};
+
+    private static final String ID = "id";
+
+    private static final String CHANGE_SEQ = "change_seq";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private static final String H2 = "H2";
+
+    private static final String LAZY_QUERY_EXECUTION = "SET LAZY_QUERY_EXECUTION %d";
+
+    private volatile BasicDataSource basicDataSource = null;
+    private volatile BasicDataSource readBasicDataSource = null;
+    private volatile String dataSource = "h2";
+    private int batchSize = 500;
+    private int commitInterval = 5000;
+    private int fetchSize = 1000;
+    private volatile DaoInstrumentation instrumentation;
 
     public AbstractJdbcDao(BasicDataSource basicDataSource, String dataSource) {
         this.basicDataSource = basicDataSource;
@@ -19,13 +51,32 @@ public abstract class AbstractJdbcDao {
     }
 
     public BasicDataSource getBasicDataSource() {
-        return basicDataSource;
+        BasicDataSource basicDataSource = this.basicDataSource;
+        return basicDataSource != null ? basicDataSource : DataSourceFactory.getDataSource(dataSource);
     }
 
     public void setBasicDataSource(BasicDataSource basicDataSource) {
         this.basicDataSource = basicDataSource;
     }
 
+    /**
+     * Returns the pool finders read from: the one set through {@link #setReadBasicDataSource}, else the explicitly
+     * set {@link #setBasicDataSource pool}, else the {@code jdbc.read.*} replica of the named bundle, which falls
+     * back to its primary pool.
+     */
+    public BasicDataSource getReadBasicDataSource() {
+        BasicDataSource readBasicDataSource = this.readBasicDataSource;
+        if (readBasicDataSource != null) {
+            return readBasicDataSource;
+        }
+        BasicDataSource basicDataSource = this.basicDataSource;
+        return basicDataSource != null ? basicDataSource : DataSourceFactory.getReadDataSource(dataSource);
+    }
+
+    public void setReadBasicDataSource(BasicDataSource readBasicDataSource) {
+        this.readBasicDataSource = readBasicDataSource;
+    }
+
     public String getDataSource() {
         return dataSource;
     }
@@ -34,25 +85,312 @@ public abstract class AbstractJdbcDao {
         this.dataSource = dataSource;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(int commitInterval) {
+        if (commitInterval <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.commitInterval = commitInterval;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public DaoInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * Reports every DAO call to {@code instrumentation}, or stops reporting when {@code null}. Uninstrumented
+     * calls use the connection unwrapped.
+     */
+    public void setInstrumentation(DaoInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Returns the connection of the {@link TransactionTemplate unit of work} running on this thread, if any, or a
+     * fresh pooled connection with auto-commit disabled.
+     */
     public Connection createConnection() {
-        ResourceBundle resourceBundle = ResourceBundle.getBundle(dataSource);
-        if (basicDataSource == null) {
-            basicDataSource = new BasicDataSource();
-            basicDataSource.setUrl(resourceBundle.getString("jdbc.url"));
-            basicDataSource.setUsername(resourceBundle.getString("jdbc.username"));
-            basicDataSource.setPassword(resourceBundle.getString("jdbc.password"));
+        BasicDataSource basicDataSource = getBasicDataSource();
+        Connection bound = TransactionContext.connectionFor(basicDataSource);
+        if (bound != null) {
+            return bound;
+        }
+        try {
+            Connection connection = basicDataSource.getConnection();
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+            }
+            return connection;
+        } catch (SQLException e) {
+            throw new RuntimeException(e.getSQLState());
+        }
+    }
+
+    /**
+     * Returns a connection for finders: the connection of a {@link TransactionTemplate unit of work} running on
+     * this thread, so reads see its writes, or else a read-only connection in auto-commit mode from
+     * {@link #getReadBasicDataSource()}, which needs no commit and no rollback when returned. The mode is switched
+     * only when the state the pool caches for the connection differs, so a connection that served the previous
+     * read costs no extra round trip.
+     */
+    public Connection createReadConnection() {
+        BasicDataSource basicDataSource = getBasicDataSource();
+        Connection bound = TransactionContext.connectionFor(basicDataSource);
+        if (bound != null) {
+            return bound;
+        }
+        BasicDataSource readBasicDataSource = getReadBasicDataSource();
+        if (readBasicDataSource != basicDataSource) {
+            bound = TransactionContext.connectionFor(readBasicDataSource);
+            if (bound != null) {
+                return bound;
+            }
         }
-        Connection connection;
         try {
-            Class.forName(resourceBundle.getString("jdbc.driver")).newInstance();
-            connection = basicDataSource.getConnection();
-            connection.setAutoCommit(false);
+            Connection connection = readBasicDataSource.getConnection();
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+            if (!connection.isReadOnly()) {
+                connection.setReadOnly(true);
+            }
             return connection;
         } catch (SQLException e) {
             throw new RuntimeException(e.getSQLState());
-        } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
+        }
+    }
+
+    /**
+     * {@link #createConnection()} for the DAO call {@code operation}, e.g. {@code UserDao.findByLogin}. With an
+     * {@link #setInstrumentation instrumentation} set, the connection is timed until it is closed.
+     */
+    protected Connection createConnection(String operation) {
+        DaoInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation == null) {
+            return createConnection();
+        }
+        return instrument(operation, instrumentation, getBasicDataSource(), this::createConnection);
+    }
+
+    /**
+     * {@link #createReadConnection()} for the finder {@code operation}, timed like {@link #createConnection(String)}.
+     */
+    protected Connection createReadConnection(String operation) {
+        DaoInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation == null) {
+            return createReadConnection();
+        }
+        return instrument(operation, instrumentation, getReadBasicDataSource(), this::createReadConnection);
+    }
+
+    /**
+     * Startup step that takes the setup cost off the first calls after a deploy. It creates the pools if this DAO
+     * has not used them yet, opens {@code minIdle} connections of each, at least one, and validates them. Then it
+     * prepares the SQL of this DAO on every one of those connections, so with {@code poolPreparedStatements}
+     * enabled the first calls find their statements already parsed in the statement pool. Invalid connections are
+     * evicted. With {@code touchIndexes} the DAO's index scans also run once, reading the index pages of a disk
+     * based database into its cache.
+     *
+     * @throws RuntimeException if a statement cannot be prepared or a scan fails, e.g. against an outdated schema
+     */
+    public WarmUpReport warmUp(boolean touchIndexes) {
+        long start = System.nanoTime();
+        BasicDataSource basicDataSource = getBasicDataSource();
+        BasicDataSource readBasicDataSource = getReadBasicDataSource();
+        int[] tally = new int[4];
+        try {
+            if (readBasicDataSource == basicDataSource) {
+                warmUp(basicDataSource, true, true, touchIndexes, tally);
+            } else {
+                warmUp(basicDataSource, true, false, false, tally);
+                warmUp(readBasicDataSource, false, true, touchIndexes, tally);
+            }
+        } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        return new WarmUpReport(tally[0], tally[1], tally[2], tally[3], System.nanoTime() - start);
+    }
+
+    /**
+     * SQL this DAO runs through {@link Connection#prepareStatement(String)} on connections of
+     * {@link #getBasicDataSource()}, for {@link #warmUp}.
+     */
+    protected List<String> getWriteStatements() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * SQL this DAO runs with {@link Statement#RETURN_GENERATED_KEYS}, which the statement pool keeps apart from the
+     * same SQL prepared without.
+     */
+    protected List<String> getInsertStatements() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * SQL the finders of this DAO prepare on connections of {@link #getReadBasicDataSource()}.
+     */
+    protected List<String> getReadStatements() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Queries reading a whole index each, run by {@link #warmUp} when asked to touch the indexes.
+     */
+    protected List<String> getIndexScans() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Borrows the connections all at once, so each is a different physical connection with its own statement pool,
+     * and returns them idle. {@code tally} counts connections, invalid connections, statements and scans.
+     */
+    private void warmUp(BasicDataSource pool, boolean write, boolean read, boolean touchIndexes, int[] tally)
+        throws SQLException {
+        int minIdle = pool.getMaxTotal() < 0 ? pool.getMinIdle() : Math.min(pool.getMinIdle(), pool.getMaxTotal());
+        List<Connection> connections = new ArrayList<>(Math.max(1, minIdle));
+        try {
+            for (int i = 0; i < Math.max(1, minIdle); i++) {
+                Connection connection = pool.getConnection();
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    connections.add(connection);
+                } else {
+                    pool.invalidateConnection(connection);
+                    tally[1]++;
+                }
+            }
+            for (Connection connection : connections) {
+                tally[0]++;
+                if (write) {
+                    for (String sql : getWriteStatements()) {
+                        connection.prepareStatement(sql).close();
+                        tally[2]++;
+                    }
+                    for (String sql : getInsertStatements()) {
+                        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+                        tally[2]++;
+                    }
+                }
+                if (read) {
+                    for (String sql : getReadStatements()) {
+                        connection.prepareStatement(sql).close();
+                        tally[2]++;
+                    }
+                }
+            }
+            if (touchIndexes && !connections.isEmpty()) {
+                Connection connection = connections.get(0);
+                try (Statement statement = connection.createStatement()) {
+                    statement.setFetchSize(fetchSize);
+                    for (String sql : getIndexScans()) {
+                        try (ResultSet rs = statement.executeQuery(sql)) {
+                            while (rs.next()) {
+                                // reading the rows is what pulls the index pages in
+                            }
+                        }
+                        tally[3]++;
+                    }
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        } finally {
+            for (Connection connection : connections) {
+                closeConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * Rolls back a failed read when it ran inside a unit of work, which marks that unit of work rollback-only.
+     * Plain read-only connections auto-commit and have nothing to roll back.
+     */
+    protected void rollbackIfTransactional(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs {@code action} once the write just made is durable: at once when the DAO call committed it itself, or
+     * after the {@link TransactionTemplate unit of work} running on this thread commits, and never if that
+     * unit of work rolls back.
+     */
+    protected void afterCommit(Runnable action) {
+        TransactionContext context = TransactionContext.current(getBasicDataSource());
+        if (context == null) {
+            action.run();
+        } else {
+            context.afterCommit(action);
+        }
+    }
+
+    /**
+     * Runs {@code action} if the unit of work running on this thread rolls back the write just made; outside a
+     * unit of work the write is already committed and {@code action} is dropped.
+     */
+    protected void afterRollback(Runnable action) {
+        TransactionContext context = TransactionContext.current(getBasicDataSource());
+        if (context != null) {
+            context.afterRollback(action);
+        }
+    }
+
+    /**
+     * @return whether DAO calls on this thread join a unit of work instead of committing themselves
+     */
+    protected boolean isTransactional() {
+        return TransactionContext.current(getBasicDataSource()) != null;
+    }
+
+    private Connection instrument(String operation, DaoInstrumentation instrumentation, BasicDataSource pool,
+                                  Supplier<Connection> connections) {
+        int active = pool.getNumActive();
+        int idle = pool.getNumIdle();
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = connections.get();
+        } catch (RuntimeException e) {
+            InstrumentedConnection.recordAcquireFailure(operation, instrumentation, System.nanoTime() - start,
+                active, idle);
+            throw e;
+        }
+        return InstrumentedConnection.wrap(connection, operation, instrumentation, start, System.nanoTime() - start,
+            active, idle);
     }
 
     public void closeConnection(Connection connection) {
@@ -95,4 +433,241 @@ public abstract class AbstractJdbcDao {
         }
     }
 
+    /**
+     * Binds every item to {@code preparedStatement} and sends them in batches of {@link #getBatchSize()},
+     * committing once at least {@link #getCommitInterval()} rows are pending and once more at the end.
+     * When {@code generatedKeys} is not null the generated keys of every committed row are appended to it;
+     * keys of a batch that failed before its commit are dropped again.
+     *
+     * @return number of rows reported as affected by the driver
+     */
+    protected <T> int executeBatch(Connection connection, PreparedStatement preparedStatement, Collection<T> items,
+                                   StatementBinder<T> binder, List<Long> generatedKeys) throws SQLException {
+        return executeBatch(connection, preparedStatement, null, items, binder, generatedKeys);
+    }
+
+    /**
+     * Like {@link #executeBatch(Connection, PreparedStatement, Collection, StatementBinder, List)}, but also binds
+     * every item to {@code followUp} with the same binder, e.g. to write a tombstone for every deleted row. Each
+     * batch of {@code followUp} is sent right after the matching batch of {@code preparedStatement}, so both
+     * statements of an item are always committed together.
+     */
+    protected <T> int executeBatch(Connection connection, PreparedStatement preparedStatement,
+                                   PreparedStatement followUp, Collection<T> items, StatementBinder<T> binder,
+                                   List<Long> generatedKeys) throws SQLException {
+        int committedKeys = generatedKeys == null ? 0 : generatedKeys.size();
+        int affected = 0;
+        int batched = 0;
+        int uncommitted = 0;
+        try {
+            for (T item : items) {
+                binder.bind(preparedStatement, item);
+                preparedStatement.addBatch();
+                if (followUp != null) {
+                    binder.bind(followUp, item);
+                    followUp.addBatch();
+                }
+                if (++batched == batchSize) {
+                    affected += flushBatch(preparedStatement, followUp, generatedKeys);
+                    uncommitted += batched;
+                    batched = 0;
+                    if (uncommitted >= commitInterval) {
+                        connection.commit();
+                        committedKeys = generatedKeys == null ? 0 : generatedKeys.size();
+                        uncommitted = 0;
+                    }
+                }
+            }
+            if (batched > 0) {
+                affected += flushBatch(preparedStatement, followUp, generatedKeys);
+            }
+            connection.commit();
+            return affected;
+        } catch (SQLException e) {
+            if (generatedKeys != null) {
+                generatedKeys.subList(committedKeys, generatedKeys.size()).clear();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Batches one statement per item like {@link #executeBatch}, but within a single transaction, and returns the
+     * index of the first {@code checked} item whose statement matched no row, or {@code -1} once all checked items
+     * matched and everything was committed. On a miss nothing is committed and the caller rolls back.
+     */
+    protected <T> int executeCheckedBatch(Connection connection, PreparedStatement preparedStatement, List<T> items,
+                                          StatementBinder<T> binder, Predicate<T> checked) throws SQLException {
+        int flushed = 0;
+        for (int i = 0; i < items.size(); i++) {
+            binder.bind(preparedStatement, items.get(i));
+            preparedStatement.addBatch();
+            if (i + 1 - flushed == batchSize || i + 1 == items.size()) {
+                int[] counts = preparedStatement.executeBatch();
+                for (int j = 0; j < counts.length; j++) {
+                    if (counts[j] == 0 && checked.test(items.get(flushed + j))) {
+                        return flushed + j;
+                    }
+                }
+                flushed = i + 1;
+            }
+        }
+        connection.commit();
+        return -1;
+    }
+
+    /**
+     * Builds one query per supported {@code IN} list size from a format with a single {@code %s}, which is
+     * replaced by the placeholders, e.g. {@code "SELECT * FROM user WHERE login IN (%s)"}.
+     */
+    protected static String[] inListQueries(String format) {
+        String[] queries = new String[IN_LIST_SIZES.length];
+        for (int i = 0; i < IN_LIST_SIZES.length; i++) {
+            StringBuilder placeholders = new StringBuilder("?");
+            for (int j = 1; j < IN_LIST_SIZES[i]; j++) {
+                placeholders.append(", ?");
+            }
+            queries[i] = String.format(format, placeholders);
+        }
+        return queries;
+    }
+
+    /**
+     * Looks {@code keys} up in chunks of at most 128 with the queries built by {@link #inListQueries}, all on
+     * {@code connection}. A chunk is padded to the next list size by repeating its last key, so whatever the
+     * number of keys only four statement shapes reach the statement caches. The keys must be distinct.
+     */
+    protected <K, T> void queryInChunks(Connection connection, String[] queries, List<K> keys,
+                                        RowMapperFactory<T> rowMapperFactory, Consumer<T> action) throws SQLException {
+        int largest = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+        for (int from = 0; from < keys.size(); from += largest) {
+            int count = Math.min(largest, keys.size() - from);
+            int shape = 0;
+            while (IN_LIST_SIZES[shape] < count) {
+                shape++;
+            }
+            try (PreparedStatement pst = connection.prepareStatement(queries[shape])) {
+                for (int i = 0; i < IN_LIST_SIZES[shape]; i++) {
+                    pst.setObject(i + 1, keys.get(from + Math.min(i, count - 1)));
+                }
+                try (ResultSet rs = pst.executeQuery()) {
+                    RowMapper<T> rowMapper = rowMapperFactory.create(rs);
+                    while (rs.next()) {
+                        action.accept(rowMapper.mapRow(rs));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one batch for {@code findModifiedSince}. {@code modifiedQuery} selects rows and {@code removedQuery}
+     * the {@code id} of tombstones, both with their {@code change_seq} above the watermark bound to the first
+     * parameter, ordered by it and limited by the second parameter. Up to {@code limit + 1} of each are merged in
+     * change order and cut at {@code limit}; an id found in both keeps only its later change.
+     */
+    protected <T> Changes<T> queryChanges(Connection connection, String modifiedQuery, String removedQuery,
+                                          long watermark, int limit, RowMapperFactory<T> rowMapperFactory,
+                                          Function<T, Long> idOf) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        List<Long> rowChanges = new ArrayList<>();
+        try (PreparedStatement pst = connection.prepareStatement(modifiedQuery)) {
+            pst.setLong(1, watermark);
+            pst.setInt(2, limit + 1);
+            try (ResultSet rs = pst.executeQuery()) {
+                RowMapper<T> rowMapper = rowMapperFactory.create(rs);
+                int changeSeq = ColumnIndexes.resolve(rs, CHANGE_SEQ)[0];
+                while (rs.next()) {
+                    rows.add(rowMapper.mapRow(rs));
+                    rowChanges.add(rs.getLong(changeSeq));
+                }
+            }
+        }
+        List<Long> tombstones = new ArrayList<>();
+        List<Long> tombstoneChanges = new ArrayList<>();
+        try (PreparedStatement pst = connection.prepareStatement(removedQuery)) {
+            pst.setLong(1, watermark);
+            pst.setInt(2, limit + 1);
+            try (ResultSet rs = pst.executeQuery()) {
+                int[] indexes = ColumnIndexes.resolve(rs, ID, CHANGE_SEQ);
+                while (rs.next()) {
+                    tombstones.add(rs.getLong(indexes[0]));
+                    tombstoneChanges.add(rs.getLong(indexes[1]));
+                }
+            }
+        }
+        Map<Long, T> modified = new LinkedHashMap<>();
+        Set<Long> removed = new LinkedHashSet<>();
+        long last = watermark;
+        int row = 0;
+        int tombstone = 0;
+        while (row + tombstone < limit && (row < rows.size() || tombstone < tombstones.size())) {
+            if (tombstone == tombstones.size()
+                || row < rows.size() && rowChanges.get(row) < tombstoneChanges.get(tombstone)) {
+                T item = rows.get(row);
+                Long id = idOf.apply(item);
+                removed.remove(id);
+                modified.put(id, item);
+                last = rowChanges.get(row++);
+            } else {
+                Long id = tombstones.get(tombstone);
+                modified.remove(id);
+                removed.add(id);
+                last = tombstoneChanges.get(tombstone++);
+            }
+        }
+        boolean more = row < rows.size() || tombstone < tombstones.size();
+        return new Changes<>(new ArrayList<>(modified.values()), new ArrayList<>(removed), last, more);
+    }
+
+    /**
+     * Makes queries on {@code connection} hand out rows as they are read, which {@link Statement#setFetchSize}
+     * alone does for most drivers. Embedded H2 ignores the fetch size and computes the whole result first unless
+     * its session executes queries lazily; undo with {@link #stopStreaming} before the connection is released.
+     *
+     * @return whether the session had to be switched
+     */
+    protected boolean startStreaming(Connection connection) throws SQLException {
+        if (!H2.equals(connection.getMetaData().getDatabaseProductName())) {
+            return false;
+        }
+        setLazyQueryExecution(connection, 1);
+        return true;
+    }
+
+    protected void stopStreaming(Connection connection) throws SQLException {
+        setLazyQueryExecution(connection, 0);
+    }
+
+    private static void setLazyQueryExecution(Connection connection, int lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format(LAZY_QUERY_EXECUTION, lazy));
+        }
+    }
+
+    protected Long generatedKey(PreparedStatement preparedStatement) throws SQLException {
+        try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+            return keys.next() ? keys.getLong(1) : null;
+        }
+    }
+
+    private int flushBatch(PreparedStatement preparedStatement, PreparedStatement followUp,
+                           List<Long> generatedKeys) throws SQLException {
+        int affected = 0;
+        for (int count : preparedStatement.executeBatch()) {
+            affected += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        if (generatedKeys != null) {
+            try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                while (keys.next()) {
+                    generatedKeys.add(keys.getLong(1));
+                }
+            }
+        }
+        if (followUp != null) {
+            followUp.executeBatch();
+        }
+        return affected;
+    }
+
 }
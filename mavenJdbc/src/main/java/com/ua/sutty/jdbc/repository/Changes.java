@@ -0,0 +1,50 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One batch of an incremental sync: the rows inserted or updated and the ids of the rows removed since the
+ * watermark it was read from. An id appears in at most one of the two lists, so they can be applied in any order.
+ */
+public final class Changes<T> {
+
+    private final List<T> modified;
+    private final List<Long> removedIds;
+    private final long watermark;
+    private final boolean more;
+
+    public Changes(List<T> modified, List<Long> removedIds, long watermark, boolean more) {
+        this.modified = Collections.unmodifiableList(modified);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+        this.watermark = watermark;
+        this.more = more;
+    }
+
+    /**
+     * @return the rows in their current state, in change order
+     */
+    public List<T> getModified() {
+        return modified;
+    }
+
+    public List<Long> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * @return change number of the last change in this batch, to pass to the next {@code findModifiedSince} call;
+     * the watermark it was read from when the batch is empty
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return whether more changes followed when the batch was read
+     */
+    public boolean hasMore() {
+        return more;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Resolves column labels to {@link ResultSet} indexes in a single pass over the result set metadata, so row
+ * mappers can read every row by index instead of paying a label lookup per field per row.
+ */
+public final class ColumnIndexes {
+
+    private ColumnIndexes() {
+    }
+
+    /**
+     * @return the 1-based index of each label, in order, or {@code 0} for a label the result set does not contain
+     */
+    public static int[] resolve(ResultSet resultSet, String... labels) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int[] indexes = new int[labels.length];
+        for (int column = metaData.getColumnCount(); column > 0; column--) {
+            String columnLabel = metaData.getColumnLabel(column);
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equalsIgnoreCase(columnLabel)) {
+                    indexes[i] = column;
+                }
+            }
+        }
+        return indexes;
+    }
+
+}
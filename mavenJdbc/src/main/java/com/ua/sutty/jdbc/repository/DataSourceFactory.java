@@ -0,0 +1,176 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds one pooled {@link BasicDataSource} per properties bundle ({@code h2}, {@code test}, ...) and shares it
+ * between all DAOs. The bundle is read and the pool configured exactly once per name.
+ * <p>
+ * A bundle may also name a read replica with {@code jdbc.read.url} (and optionally {@code jdbc.read.username} and
+ * {@code jdbc.read.password}, which default to the primary's). Finders then read from a second pool whose
+ * connections default to read-only, auto-commit and read-committed isolation. The replica is never migrated; it is
+ * expected to follow the primary's schema. Without one, finders switch primary connections to read-only and
+ * auto-commit; the primary pool is read-committed as well, so reads need no per-call isolation change.
+ */
+public final class DataSourceFactory {
+
+    public static final String URL = "jdbc.url";
+    public static final String USERNAME = "jdbc.username";
+    public static final String PASSWORD = "jdbc.password";
+    public static final String DRIVER = "jdbc.driver";
+    public static final String INITIAL_SIZE = "jdbc.pool.initialSize";
+    public static final String MAX_TOTAL = "jdbc.pool.maxTotal";
+    public static final String MAX_IDLE = "jdbc.pool.maxIdle";
+    public static final String MIN_IDLE = "jdbc.pool.minIdle";
+    public static final String MAX_WAIT_MILLIS = "jdbc.pool.maxWaitMillis";
+    public static final String VALIDATION_QUERY = "jdbc.pool.validationQuery";
+    public static final String TEST_ON_BORROW = "jdbc.pool.testOnBorrow";
+    public static final String POOL_PREPARED_STATEMENTS = "jdbc.pool.poolPreparedStatements";
+    public static final String MAX_OPEN_PREPARED_STATEMENTS = "jdbc.pool.maxOpenPreparedStatements";
+    public static final String READ_URL = "jdbc.read.url";
+    public static final String READ_USERNAME = "jdbc.read.username";
+    public static final String READ_PASSWORD = "jdbc.read.password";
+    public static final String MIGRATE = "sql.migrate";
+    public static final String MIGRATIONS = "sql.migrations";
+
+    private static final ConcurrentMap<String, BasicDataSource> DATA_SOURCES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, BasicDataSource> READ_DATA_SOURCES = new ConcurrentHashMap<>();
+
+    private DataSourceFactory() {
+    }
+
+    public static BasicDataSource getDataSource(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        return DATA_SOURCES.computeIfAbsent(name, DataSourceFactory::createDataSource);
+    }
+
+    /**
+     * Returns the pool finders of bundle {@code name} read from: its replica when {@code jdbc.read.url} is set,
+     * otherwise the primary pool itself.
+     */
+    public static BasicDataSource getReadDataSource(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        return READ_DATA_SOURCES.computeIfAbsent(name, key -> {
+            BasicDataSource primary = getDataSource(key);
+            BasicDataSource replica = createReadDataSource(ResourceBundle.getBundle(key));
+            return replica != null ? replica : primary;
+        });
+    }
+
+    public static void close(String name) {
+        BasicDataSource readDataSource = READ_DATA_SOURCES.remove(name);
+        BasicDataSource basicDataSource = DATA_SOURCES.remove(name);
+        if (readDataSource != null && readDataSource != basicDataSource) {
+            close(readDataSource);
+        }
+        if (basicDataSource != null) {
+            close(basicDataSource);
+        }
+    }
+
+    /**
+     * Creates the pool for bundle {@code name} and, when {@code sql.migrate=true}, brings the schema up to date.
+     */
+    public static BasicDataSource createDataSource(String name) {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(name);
+        BasicDataSource basicDataSource = createDataSource(resourceBundle);
+        if (resourceBundle.containsKey(MIGRATE) && Boolean.parseBoolean(resourceBundle.getString(MIGRATE).trim())) {
+            String location = resourceBundle.containsKey(MIGRATIONS)
+                ? resourceBundle.getString(MIGRATIONS).trim() : SchemaMigrator.DEFAULT_LOCATION;
+            new SchemaMigrator(basicDataSource, location).migrate();
+        }
+        return basicDataSource;
+    }
+
+    public static BasicDataSource createDataSource(ResourceBundle resourceBundle) {
+        BasicDataSource basicDataSource = createPool(resourceBundle, resourceBundle.getString(URL),
+            resourceBundle.getString(USERNAME), resourceBundle.getString(PASSWORD));
+        basicDataSource.setDefaultAutoCommit(false);
+        basicDataSource.setDefaultReadOnly(false);
+        basicDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        basicDataSource.setEnableAutoCommitOnReturn(false);
+        return basicDataSource;
+    }
+
+    /**
+     * Creates the replica pool described by {@code jdbc.read.*}, or returns {@code null} when the bundle has none.
+     */
+    public static BasicDataSource createReadDataSource(ResourceBundle resourceBundle) {
+        if (!resourceBundle.containsKey(READ_URL)) {
+            return null;
+        }
+        String username = resourceBundle.containsKey(READ_USERNAME)
+            ? resourceBundle.getString(READ_USERNAME) : resourceBundle.getString(USERNAME);
+        String password = resourceBundle.containsKey(READ_PASSWORD)
+            ? resourceBundle.getString(READ_PASSWORD) : resourceBundle.getString(PASSWORD);
+        BasicDataSource basicDataSource = createPool(resourceBundle, resourceBundle.getString(READ_URL).trim(),
+            username, password);
+        basicDataSource.setDefaultAutoCommit(true);
+        basicDataSource.setDefaultReadOnly(true);
+        basicDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return basicDataSource;
+    }
+
+    private static BasicDataSource createPool(ResourceBundle resourceBundle, String url, String username,
+                                              String password) {
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setDriverClassName(resourceBundle.getString(DRIVER));
+        basicDataSource.setUrl(url);
+        basicDataSource.setUsername(username);
+        basicDataSource.setPassword(password);
+        if (resourceBundle.containsKey(INITIAL_SIZE)) {
+            basicDataSource.setInitialSize(getInt(resourceBundle, INITIAL_SIZE));
+        }
+        if (resourceBundle.containsKey(MAX_TOTAL)) {
+            basicDataSource.setMaxTotal(getInt(resourceBundle, MAX_TOTAL));
+        }
+        if (resourceBundle.containsKey(MAX_IDLE)) {
+            basicDataSource.setMaxIdle(getInt(resourceBundle, MAX_IDLE));
+        }
+        if (resourceBundle.containsKey(MIN_IDLE)) {
+            basicDataSource.setMinIdle(getInt(resourceBundle, MIN_IDLE));
+        }
+        if (resourceBundle.containsKey(MAX_WAIT_MILLIS)) {
+            basicDataSource.setMaxWaitMillis(Long.parseLong(resourceBundle.getString(MAX_WAIT_MILLIS).trim()));
+        }
+        if (resourceBundle.containsKey(VALIDATION_QUERY)) {
+            basicDataSource.setValidationQuery(resourceBundle.getString(VALIDATION_QUERY));
+        }
+        if (resourceBundle.containsKey(TEST_ON_BORROW)) {
+            basicDataSource.setTestOnBorrow(Boolean.parseBoolean(resourceBundle.getString(TEST_ON_BORROW).trim()));
+        }
+        if (resourceBundle.containsKey(POOL_PREPARED_STATEMENTS)) {
+            basicDataSource.setPoolPreparedStatements(
+                Boolean.parseBoolean(resourceBundle.getString(POOL_PREPARED_STATEMENTS).trim()));
+        }
+        if (resourceBundle.containsKey(MAX_OPEN_PREPARED_STATEMENTS)) {
+            basicDataSource.setMaxOpenPreparedStatements(getInt(resourceBundle, MAX_OPEN_PREPARED_STATEMENTS));
+        }
+        return basicDataSource;
+    }
+
+    private static void close(BasicDataSource basicDataSource) {
+        try {
+            basicDataSource.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int getInt(ResourceBundle resourceBundle, String key) {
+        return Integer.parseInt(resourceBundle.getString(key).trim());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.Role;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for {@link RoleDao} decorators: forwards every call to the wrapped DAO.
+ */
+public abstract class ForwardingRoleDao implements RoleDao {
+
+    private final RoleDao delegate;
+
+    protected ForwardingRoleDao(RoleDao delegate) {
+        if (delegate == null) {
+            throw new NullPointerException();
+        }
+        this.delegate = delegate;
+    }
+
+    protected RoleDao delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Long create(Role role) {
+        return delegate.create(role);
+    }
+
+    @Override
+    public void update(Role role) {
+        delegate.update(role);
+    }
+
+    @Override
+    public void remove(Role role) {
+        delegate.remove(role);
+    }
+
+    @Override
+    public long removeInChunks(Role role, RemovalListener listener) {
+        return delegate.removeInChunks(role, listener);
+    }
+
+    @Override
+    public int resumeRemovals(RemovalListener listener) {
+        return delegate.resumeRemovals(listener);
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        return delegate.createAll(roles);
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        delegate.updateAll(roles);
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        delegate.removeAll(roles);
+    }
+
+    @Override
+    public Changes<Role> findModifiedSince(long watermark, int limit) {
+        return delegate.findModifiedSince(watermark, limit);
+    }
+
+    @Override
+    public Role findByName(String name) {
+        return delegate.findByName(name);
+    }
+
+    @Override
+    public Map<String, Role> findByNames(Collection<String> names) {
+        return delegate.findByNames(names);
+    }
+
+}
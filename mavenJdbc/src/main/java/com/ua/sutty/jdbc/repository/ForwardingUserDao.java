@@ -0,0 +1,135 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Base class for {@link UserDao} decorators: forwards every call to the wrapped DAO.
+ */
+public abstract class ForwardingUserDao implements UserDao {
+
+    private final UserDao delegate;
+
+    protected ForwardingUserDao(UserDao delegate) {
+        if (delegate == null) {
+            throw new NullPointerException();
+        }
+        this.delegate = delegate;
+    }
+
+    protected UserDao delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Long create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public void update(User user) {
+        delegate.update(user);
+    }
+
+    @Override
+    public void patch(UserPatch patch) {
+        delegate.patch(patch);
+    }
+
+    @Override
+    public void setRole(Long userId, Long roleId) {
+        delegate.setRole(userId, roleId);
+    }
+
+    @Override
+    public void remove(User user) {
+        delegate.remove(user);
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        delegate.updateAll(users);
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        delegate.removeAll(users);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Page<User> findPage(UserSort sort, PageCursor after, int limit) {
+        return delegate.findPage(sort, after, limit);
+    }
+
+    @Override
+    public Page<User> find(UserQuery query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public Changes<User> findModifiedSince(long watermark, int limit) {
+        return delegate.findModifiedSince(watermark, limit);
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        return delegate.findByLogin(login);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Map<String, User> findByLogins(Collection<String> logins) {
+        return delegate.findByLogins(logins);
+    }
+
+    @Override
+    public Map<String, User> findByEmails(Collection<String> emails) {
+        return delegate.findByEmails(emails);
+    }
+
+    @Override
+    public Map<Long, User> findByIds(Collection<Long> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public List<UserWithRole> findAllWithRoles() {
+        return delegate.findAllWithRoles();
+    }
+
+    @Override
+    public UserWithRole findByLoginWithRole(String login) {
+        return delegate.findByLoginWithRole(login);
+    }
+
+}
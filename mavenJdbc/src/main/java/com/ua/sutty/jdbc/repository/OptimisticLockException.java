@@ -0,0 +1,34 @@
+package com.ua.sutty.jdbc.repository;
+
+/**
+ * Thrown by a versioned update that matched no row: since the entity was read, another writer updated or removed
+ * it. Nothing was written; the caller re-reads the entity and decides whether to apply its change again.
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String table;
+    private final Long id;
+    private final Long version;
+
+    public OptimisticLockException(String table, Long id, Long version) {
+        super(String.format("%s %d was changed or removed after version %d", table, id, version));
+        this.table = table;
+        this.id = id;
+        this.version = version;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+}
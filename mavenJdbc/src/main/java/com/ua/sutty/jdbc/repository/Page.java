@@ -0,0 +1,31 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class Page<T> {
+
+    private final List<T> items;
+    private final PageCursor nextCursor;
+
+    public Page(List<T> items, PageCursor nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return cursor to pass to the next {@code findPage} call, or {@code null} when this is the last page
+     */
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
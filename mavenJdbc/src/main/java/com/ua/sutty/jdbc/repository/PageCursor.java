@@ -0,0 +1,37 @@
+package com.ua.sutty.jdbc.repository;
+
+/**
+ * Position right after the last row of a page: the sort key of that row plus its id as a tie breaker.
+ */
+public final class PageCursor {
+
+    private final UserSort sort;
+    private final String value;
+    private final long id;
+
+    public PageCursor(UserSort sort, String value, long id) {
+        if (sort == null) {
+            throw new NullPointerException();
+        }
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static PageCursor afterId(long id) {
+        return new PageCursor(UserSort.ID, null, id);
+    }
+
+    public UserSort getSort() {
+        return sort;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.ua.sutty.jdbc.repository;
+
+/**
+ * Progress of {@link RoleDao#removeInChunks}.
+ */
+@FunctionalInterface
+public interface RemovalListener {
+
+    /**
+     * Called after each committed chunk of users, and once more with {@code done} after the role itself is gone.
+     *
+     * @param usersRemoved users of the role removed so far by this call
+     */
+    void onProgress(Long roleId, long usersRemoved, boolean done);
+
+}
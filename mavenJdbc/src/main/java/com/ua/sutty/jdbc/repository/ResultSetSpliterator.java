@@ -0,0 +1,41 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Reads one row per {@link #tryAdvance} from an open {@link ResultSet}. The owning resources are released through
+ * {@code onExhausted} as soon as the last row has been read, and again (idempotently) by the stream's close handler.
+ */
+public class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final Runnable onExhausted;
+
+    public ResultSetSpliterator(ResultSet resultSet, RowMapper<T> rowMapper, Runnable onExhausted) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.onExhausted = onExhausted;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (resultSet.isClosed() || !resultSet.next()) {
+                onExhausted.run();
+                return false;
+            }
+            action.accept(rowMapper.mapRow(resultSet));
+            return true;
+        } catch (SQLException e) {
+            onExhausted.run();
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -3,14 +3,68 @@ package com.ua.sutty.jdbc.repository;
 
 import com.ua.sutty.jdbc.domain.Role;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public interface RoleDao {
 
-    void create(Role role);
+    /**
+     * Inserts the role unless one with the same name exists and sets the generated id on it.
+     *
+     * @return the generated id, or {@code null} when a role with this name already exists
+     */
+    Long create(Role role);
 
+    /**
+     * Writes all columns of the row. A role carrying a {@link Role#getVersion() version} is only written if the row
+     * is still at that version, and the version is then incremented on both; otherwise
+     * {@link OptimisticLockException} is thrown.
+     */
     void update(Role role);
 
     void remove(Role role);
 
+    /**
+     * Removes the role and its users like {@link #remove}, but deletes the users in chunks of the commit interval,
+     * each committed on its own, so concurrent readers and writers of the user table never wait for more than one
+     * chunk. The role is recorded as being removed first; if the call fails or the process dies part-way,
+     * {@link #resumeRemovals} finishes the job. Inside a unit of work the chunks are not committed separately.
+     *
+     * @param listener notified after every chunk, or {@code null}
+     * @return the number of users removed, or {@code -1} when a statement failed
+     * @throws IllegalArgumentException if there is no such role
+     */
+    long removeInChunks(Role role, RemovalListener listener);
+
+    /**
+     * Finishes every {@link #removeInChunks} that did not complete.
+     *
+     * @return the number of roles removed
+     */
+    int resumeRemovals(RemovalListener listener);
+
+    List<Long> createAll(Collection<Role> roles);
+
+    /**
+     * Updates in batches like {@link #update}. When any element carries a version the whole collection is written
+     * in one transaction, and a conflict on any of them rolls back all.
+     */
+    void updateAll(Collection<Role> roles);
+
+    void removeAll(Collection<Role> roles);
+
+    /**
+     * Incremental sync of roles, like {@link UserDao#findModifiedSince}. Removing a role reports the removal of
+     * its users through {@code UserDao.findModifiedSince}.
+     */
+    Changes<Role> findModifiedSince(long watermark, int limit);
+
     Role findByName(String name);
 
+    /**
+     * Looks all names up over one connection. Names without a role are absent from the map.
+     */
+    Map<String, Role> findByNames(Collection<String> names);
+
 }
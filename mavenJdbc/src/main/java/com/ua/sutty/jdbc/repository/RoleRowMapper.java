@@ -0,0 +1,40 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.Role;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the {@code role} table by column index, resolved once from the metadata of the result set the
+ * mapper is created for. An instance must only be used with that result set.
+ */
+public class RoleRowMapper implements RowMapper<Role> {
+
+    private final int id;
+    private final int name;
+    private final int version;
+
+    public RoleRowMapper(ResultSet resultSet) throws SQLException {
+        int[] indexes = ColumnIndexes.resolve(resultSet, Role.ID, Role.NAME, Role.VERSION);
+        id = indexes[0];
+        name = indexes[1];
+        version = indexes[2];
+    }
+
+    @Override
+    public Role mapRow(ResultSet resultSet) throws SQLException {
+        Role role = new Role();
+        if (id != 0) {
+            role.setId(resultSet.getLong(id));
+        }
+        if (name != 0) {
+            role.setName(resultSet.getString(name));
+        }
+        if (version != 0) {
+            role.setVersion(resultSet.getLong(version));
+        }
+        return role;
+    }
+
+}
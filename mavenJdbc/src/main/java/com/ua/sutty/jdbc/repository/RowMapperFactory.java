@@ -0,0 +1,14 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Creates the {@link RowMapper} for one result set, e.g. {@code UserRowMapper::new}.
+ */
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+
+    RowMapper<T> create(ResultSet resultSet) throws SQLException;
+
+}
@@ -0,0 +1,11 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface StatementBinder<T> {
+
+    void bind(PreparedStatement preparedStatement, T item) throws SQLException;
+
+}
@@ -2,21 +2,114 @@ package com.ua.sutty.jdbc.repository;
 
 
 import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface UserDao {
 
-    void create(User user);
+    /**
+     * Inserts the user and sets the generated id and initial version on it.
+     *
+     * @return the generated id
+     */
+    Long create(User user);
 
-    void update(User role);
+    /**
+     * Writes all columns of the row. A user carrying a {@link User#getVersion() version} is only written if the row
+     * is still at that version, and the version is then incremented on both; otherwise
+     * {@link OptimisticLockException} is thrown.
+     */
+    void update(User user);
+
+    /**
+     * Writes only the changed columns of {@code patch}, with the same version check as {@link #update}.
+     */
+    void patch(UserPatch patch);
+
+    /**
+     * Moves the user to another role, writing nothing but {@code role_id}.
+     *
+     * @throws IllegalArgumentException if there is no user {@code userId}
+     */
+    void setRole(Long userId, Long roleId);
 
     void remove(User role);
 
+    List<Long> createAll(Collection<User> users);
+
+    /**
+     * Updates in batches like {@link #update}. When any element carries a version the whole collection is written
+     * in one transaction, and a conflict on any of them rolls back all.
+     */
+    void updateAll(Collection<User> users);
+
+    void removeAll(Collection<User> users);
+
     List<User> findAll();
 
+    /**
+     * Lazily reads the whole table over one dedicated connection which stays open until the stream is exhausted
+     * or closed, so callers should consume it inside try-with-resources.
+     */
+    Stream<User> streamAll();
+
+    Page<User> findPage(Long afterId, int limit);
+
+    /**
+     * Keyset pagination: {@code after} is the cursor of the previous page, or {@code null} for the first one.
+     */
+    Page<User> findPage(UserSort sort, PageCursor after, int limit);
+
+    /**
+     * Returns one page of the users matching {@code query}, filtered and sorted by the database.
+     */
+    Page<User> find(UserQuery query);
+
+    /**
+     * Incremental sync: reads up to {@code limit} changes made after {@code watermark}, oldest first, through the
+     * change number index. Every insert, update and removal draws a new change number; removals are reported by
+     * id, also for ids that {@link #removeAll} was given without a row. Pass {@code 0} to read every row, then the
+     * {@link Changes#getWatermark() watermark} of the previous batch.
+     *
+     * <p>Change numbers are drawn when a statement runs, not when it commits, so a write still in flight may later
+     * commit below a watermark already handed out; callers that must not miss one re-read from a little behind it.
+     */
+    Changes<User> findModifiedSince(long watermark, int limit);
+
     User findByLogin(String login);
 
     User findByEmail(String email);
 
+    /**
+     * Looks all logins up over one connection. Logins without a user are absent from the map.
+     */
+    Map<String, User> findByLogins(Collection<String> logins);
+
+    /**
+     * Looks all emails up over one connection. Emails without a user are absent from the map.
+     */
+    Map<String, User> findByEmails(Collection<String> emails);
+
+    /**
+     * Looks all ids up over one connection. Ids without a user are absent from the map.
+     */
+    Map<Long, User> findByIds(Collection<Long> ids);
+
+    /**
+     * Reads every user with its role in one join. Users with the same role share its {@code Role} instance.
+     */
+    List<UserWithRole> findAllWithRoles();
+
+    /**
+     * Reads the user and its role in one join.
+     *
+     * @return the user with its role, or an empty user without a role when the login is unknown
+     */
+    UserWithRole findByLoginWithRole(String login);
+
 }
@@ -0,0 +1,108 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.sql.Date;
+
+/**
+ * Criteria for {@link UserDao#find}: every predicate that is set must hold, unset ones are ignored. Results are
+ * sorted by {@link #getSort()} and id, and paged with the cursor of the previous page like
+ * {@link UserDao#findPage(UserSort, PageCursor, int)}.
+ */
+public class UserQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    private String loginPrefix;
+    private String emailDomain;
+    private Long roleId;
+    private Date bornFrom;
+    private Date bornTo;
+    private UserSort sort = UserSort.ID;
+    private PageCursor after;
+    private int limit = DEFAULT_LIMIT;
+
+    public String getLoginPrefix() {
+        return loginPrefix;
+    }
+
+    /**
+     * Matches logins starting with {@code loginPrefix}; {@code %} and {@code _} match themselves.
+     */
+    public void setLoginPrefix(String loginPrefix) {
+        this.loginPrefix = loginPrefix;
+    }
+
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
+    /**
+     * Matches emails ending with {@code @emailDomain}.
+     */
+    public void setEmailDomain(String emailDomain) {
+        this.emailDomain = emailDomain;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+
+    public Date getBornFrom() {
+        return bornFrom;
+    }
+
+    /**
+     * Matches birthdays on or after {@code bornFrom}.
+     */
+    public void setBornFrom(Date bornFrom) {
+        this.bornFrom = bornFrom;
+    }
+
+    public Date getBornTo() {
+        return bornTo;
+    }
+
+    /**
+     * Matches birthdays on or before {@code bornTo}.
+     */
+    public void setBornTo(Date bornTo) {
+        this.bornTo = bornTo;
+    }
+
+    public UserSort getSort() {
+        return sort;
+    }
+
+    public void setSort(UserSort sort) {
+        if (sort == null) {
+            throw new NullPointerException();
+        }
+        this.sort = sort;
+    }
+
+    public PageCursor getAfter() {
+        return after;
+    }
+
+    /**
+     * Continues after {@link Page#getNextCursor()} of the previous page, which must use the same sort.
+     */
+    public void setAfter(PageCursor after) {
+        this.after = after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.limit = limit;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the {@code user} table by column index. The indexes are resolved once, from the metadata of the
+ * result set the mapper is created for; a column left out of the query is skipped and its field stays {@code null}.
+ * An instance must only be used with that result set.
+ */
+public class UserRowMapper implements RowMapper<User> {
+
+    private final int id;
+    private final int login;
+    private final int password;
+    private final int email;
+    private final int firstName;
+    private final int lastName;
+    private final int birthday;
+    private final int roleId;
+    private final int version;
+
+    public UserRowMapper(ResultSet resultSet) throws SQLException {
+        int[] indexes = ColumnIndexes.resolve(resultSet, User.ID, User.LOGIN, User.PASSWORD, User.EMAIL,
+            User.FIRST_NAME, User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID, User.VERSION);
+        id = indexes[0];
+        login = indexes[1];
+        password = indexes[2];
+        email = indexes[3];
+        firstName = indexes[4];
+        lastName = indexes[5];
+        birthday = indexes[6];
+        roleId = indexes[7];
+        version = indexes[8];
+    }
+
+    @Override
+    public User mapRow(ResultSet resultSet) throws SQLException {
+        User user = new User();
+        if (id != 0) {
+            user.setId(resultSet.getLong(id));
+        }
+        if (login != 0) {
+            user.setLogin(resultSet.getString(login));
+        }
+        if (password != 0) {
+            user.setPassword(resultSet.getString(password));
+        }
+        if (email != 0) {
+            user.setEmail(resultSet.getString(email));
+        }
+        if (firstName != 0) {
+            user.setFirstName(resultSet.getString(firstName));
+        }
+        if (lastName != 0) {
+            user.setLastName(resultSet.getString(lastName));
+        }
+        if (birthday != 0) {
+            user.setBirthday(resultSet.getDate(birthday));
+        }
+        if (roleId != 0) {
+            user.setRoleId(resultSet.getLong(roleId));
+        }
+        if (version != 0) {
+            user.setVersion(resultSet.getLong(version));
+        }
+        return user;
+    }
+
+}
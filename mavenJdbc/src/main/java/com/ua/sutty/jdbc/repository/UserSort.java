@@ -0,0 +1,22 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.User;
+
+public enum UserSort {
+
+    ID(User.ID),
+    LOGIN(User.LOGIN),
+    EMAIL(User.EMAIL),
+    LAST_NAME(User.LAST_NAME);
+
+    private final String column;
+
+    UserSort(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserWithRole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps rows of {@code user} joined with the name of their role, labelled {@value #ROLE_NAME}. Each role id is
+ * turned into one {@link Role}, shared by every row this mapper reads, so a page of users with a handful of roles
+ * allocates a handful of roles.
+ */
+public class UserWithRoleRowMapper implements RowMapper<UserWithRole> {
+
+    public static final String ROLE_NAME = "role_name";
+
+    private final UserRowMapper userRowMapper;
+    private final int roleName;
+    private final Map<Long, Role> roles = new HashMap<>();
+
+    public UserWithRoleRowMapper(ResultSet resultSet) throws SQLException {
+        userRowMapper = new UserRowMapper(resultSet);
+        roleName = ColumnIndexes.resolve(resultSet, ROLE_NAME)[0];
+    }
+
+    @Override
+    public UserWithRole mapRow(ResultSet resultSet) throws SQLException {
+        User user = userRowMapper.mapRow(resultSet);
+        String name = roleName == 0 ? null : resultSet.getString(roleName);
+        if (name == null) {
+            return new UserWithRole(user, null);
+        }
+        Role role = roles.get(user.getRoleId());
+        if (role == null) {
+            role = new Role(user.getRoleId(), name);
+            roles.put(role.getId(), role);
+        }
+        return new UserWithRole(user, role);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+
+/**
+ * Told about every user write made through {@link com.ua.sutty.jdbc.repository.impl.JdbcUserDao} and every role
+ * removal made through {@link com.ua.sutty.jdbc.repository.impl.JdbcRoleDao}, once the write has committed: right
+ * after the DAO call, or inside a {@link com.ua.sutty.jdbc.repository.transaction.TransactionTemplate unit of work}
+ * after that unit of work commits, with the objects as they were when the write was made. Writes rolled back,
+ * including a group-committed write rolled back to its savepoint, are never reported. Listeners run on the writing
+ * thread and must not keep the objects passed in, which belong to the caller. A bulk update or removal that fails
+ * part-way is not reported.
+ */
+public interface UserWriteListener {
+
+    /**
+     * @param user the inserted user with its generated id and initial version
+     */
+    void userCreated(User user);
+
+    /**
+     * @param user the written row; its version is the new one, or {@code null} for an unversioned update
+     */
+    void userUpdated(User user);
+
+    /**
+     * @param patch the changed columns; its version is the new one, or {@code null} for an unversioned patch
+     */
+    void userPatched(UserPatch patch);
+
+    void userRemoved(Long id);
+
+    /**
+     * The role was removed together with all its users.
+     */
+    void roleRemoved(Long roleId);
+
+}
@@ -0,0 +1,59 @@
+package com.ua.sutty.jdbc.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of {@link AbstractJdbcDao#warmUp}.
+ */
+public final class WarmUpReport {
+
+    private final int connections;
+    private final int invalidConnections;
+    private final int statements;
+    private final int indexScans;
+    private final long elapsedNanos;
+
+    public WarmUpReport(int connections, int invalidConnections, int statements, int indexScans, long elapsedNanos) {
+        this.connections = connections;
+        this.invalidConnections = invalidConnections;
+        this.statements = statements;
+        this.indexScans = indexScans;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return connections that passed validation and are now idle in their pool
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return connections that failed validation and were evicted from their pool
+     */
+    public int getInvalidConnections() {
+        return invalidConnections;
+    }
+
+    /**
+     * @return statements prepared, counted once per connection
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getIndexScans() {
+        return indexScans;
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Warmed up %d connections (%d invalid), %d statements and %d index scans in %d ms",
+            connections, invalidConnections, statements, indexScans, getElapsed(TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.RemovalListener;
+import com.ua.sutty.jdbc.repository.RoleDao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of {@link RoleDao}: each method has the same contract as its blocking counterpart, and its
+ * failures, including argument checks, complete the returned future exceptionally.
+ */
+public interface AsyncRoleDao {
+
+    CompletableFuture<Long> create(Role role);
+
+    CompletableFuture<Void> update(Role role);
+
+    CompletableFuture<Void> remove(Role role);
+
+    /**
+     * Runs {@link RoleDao#removeInChunks} in the background; the listener is called from the DAO thread.
+     */
+    CompletableFuture<Long> removeInChunks(Role role, RemovalListener listener);
+
+    CompletableFuture<Integer> resumeRemovals(RemovalListener listener);
+
+    CompletableFuture<List<Long>> createAll(Collection<Role> roles);
+
+    CompletableFuture<Void> updateAll(Collection<Role> roles);
+
+    CompletableFuture<Void> removeAll(Collection<Role> roles);
+
+    CompletableFuture<Changes<Role>> findModifiedSince(long watermark, int limit);
+
+    CompletableFuture<Role> findByName(String name);
+
+    CompletableFuture<Map<String, Role>> findByNames(Collection<String> names);
+
+}
@@ -0,0 +1,65 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.Page;
+import com.ua.sutty.jdbc.repository.PageCursor;
+import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.UserQuery;
+import com.ua.sutty.jdbc.repository.UserSort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of {@link UserDao}: each method has the same contract as its blocking counterpart, and its
+ * failures, including argument checks, complete the returned future exceptionally. {@code streamAll} has no
+ * counterpart because consuming the stream blocks the reading thread anyway.
+ */
+public interface AsyncUserDao {
+
+    CompletableFuture<Long> create(User user);
+
+    CompletableFuture<Void> update(User user);
+
+    CompletableFuture<Void> patch(UserPatch patch);
+
+    CompletableFuture<Void> setRole(Long userId, Long roleId);
+
+    CompletableFuture<Void> remove(User user);
+
+    CompletableFuture<List<Long>> createAll(Collection<User> users);
+
+    CompletableFuture<Void> updateAll(Collection<User> users);
+
+    CompletableFuture<Void> removeAll(Collection<User> users);
+
+    CompletableFuture<List<User>> findAll();
+
+    CompletableFuture<Page<User>> findPage(Long afterId, int limit);
+
+    CompletableFuture<Page<User>> findPage(UserSort sort, PageCursor after, int limit);
+
+    CompletableFuture<Page<User>> find(UserQuery query);
+
+    CompletableFuture<Changes<User>> findModifiedSince(long watermark, int limit);
+
+    CompletableFuture<User> findByLogin(String login);
+
+    CompletableFuture<User> findByEmail(String email);
+
+    CompletableFuture<Map<String, User>> findByLogins(Collection<String> logins);
+
+    CompletableFuture<Map<String, User>> findByEmails(Collection<String> emails);
+
+    CompletableFuture<Map<Long, User>> findByIds(Collection<Long> ids);
+
+    CompletableFuture<List<UserWithRole>> findAllWithRoles();
+
+    CompletableFuture<UserWithRole> findByLoginWithRole(String login);
+
+}
@@ -0,0 +1,204 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking DAO calls off the caller's thread with at most {@code concurrency} of them in flight, which should
+ * match the size of the connection pool, and at most {@code queueCapacity} more waiting. A submission beyond that
+ * is not queued: its future fails at once with {@link RejectedExecutionException}, so a saturated pool pushes back
+ * on the caller instead of growing an unbounded backlog.
+ *
+ * <p>On Java 21+ every call gets its own virtual thread and the concurrency limit is a semaphore; on older runtimes
+ * the calls run on a fixed pool of {@code concurrency} daemon threads.
+ */
+public class BoundedDaoExecutor implements AutoCloseable {
+
+    private static final int QUEUE_PER_CONNECTION = 4;
+    private static final AtomicInteger EXECUTORS = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final Semaphore running;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedDaoExecutor(int concurrency, int queueCapacity) {
+        this(concurrency, queueCapacity, true);
+    }
+
+    /**
+     * @param virtualThreads {@code false} forces the platform thread pool even where virtual threads exist
+     */
+    public BoundedDaoExecutor(int concurrency, int queueCapacity, boolean virtualThreads) {
+        if (concurrency <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.admission = new Semaphore(concurrency + queueCapacity);
+        ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            executor = virtual;
+            running = new Semaphore(concurrency, true);
+        } else {
+            executor = newPlatformThreadExecutor(concurrency);
+            running = null;
+        }
+    }
+
+    /**
+     * Sizes the executor to the pool: {@code maxTotal} calls in flight and four times as many waiting.
+     */
+    public static BoundedDaoExecutor forDataSource(BasicDataSource basicDataSource) {
+        if (basicDataSource == null) {
+            throw new NullPointerException();
+        }
+        int maxTotal = basicDataSource.getMaxTotal();
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("The pool size is unbounded");
+        }
+        return new BoundedDaoExecutor(maxTotal, maxTotal * QUEUE_PER_CONNECTION);
+    }
+
+    /**
+     * Runs the task asynchronously. Anything it throws completes the future exceptionally. Dependent stages added
+     * without an executor run on the DAO thread, so callers should chain their own work with the {@code *Async}
+     * variants.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(
+                "All " + concurrency + " connections are busy and " + queueCapacity + " calls are waiting"));
+            return future;
+        }
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public boolean isVirtual() {
+        return running != null;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return calls submitted and not yet finished, running or waiting
+     */
+    public int getPendingCount() {
+        return concurrency + queueCapacity - admission.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops accepting calls; the ones already submitted still run.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Runs the task and releases its admission permit before completing the future, so a caller that saw its
+     * future complete also sees the call gone from {@link #getPendingCount()}.
+     */
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future) {
+        if (running != null) {
+            try {
+                running.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                admission.release();
+                future.completeExceptionally(e);
+                return;
+            }
+        }
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = task.get();
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            if (running != null) {
+                running.release();
+            }
+            admission.release();
+        }
+        if (failure == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        String prefix = "dao-async-" + EXECUTORS.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
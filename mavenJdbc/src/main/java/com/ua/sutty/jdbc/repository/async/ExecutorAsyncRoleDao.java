@@ -0,0 +1,84 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.RemovalListener;
+import com.ua.sutty.jdbc.repository.RoleDao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs every call of a blocking {@link RoleDao} on a {@link BoundedDaoExecutor}.
+ */
+public class ExecutorAsyncRoleDao implements AsyncRoleDao {
+
+    private final RoleDao roleDao;
+    private final BoundedDaoExecutor executor;
+
+    public ExecutorAsyncRoleDao(RoleDao roleDao, BoundedDaoExecutor executor) {
+        if (roleDao == null || executor == null) {
+            throw new NullPointerException();
+        }
+        this.roleDao = roleDao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Long> create(Role role) {
+        return executor.submit(() -> roleDao.create(role));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Role role) {
+        return executor.execute(() -> roleDao.update(role));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(Role role) {
+        return executor.execute(() -> roleDao.remove(role));
+    }
+
+    @Override
+    public CompletableFuture<Long> removeInChunks(Role role, RemovalListener listener) {
+        return executor.submit(() -> roleDao.removeInChunks(role, listener));
+    }
+
+    @Override
+    public CompletableFuture<Integer> resumeRemovals(RemovalListener listener) {
+        return executor.submit(() -> roleDao.resumeRemovals(listener));
+    }
+
+    @Override
+    public CompletableFuture<List<Long>> createAll(Collection<Role> roles) {
+        return executor.submit(() -> roleDao.createAll(roles));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAll(Collection<Role> roles) {
+        return executor.execute(() -> roleDao.updateAll(roles));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<Role> roles) {
+        return executor.execute(() -> roleDao.removeAll(roles));
+    }
+
+    @Override
+    public CompletableFuture<Changes<Role>> findModifiedSince(long watermark, int limit) {
+        return executor.submit(() -> roleDao.findModifiedSince(watermark, limit));
+    }
+
+    @Override
+    public CompletableFuture<Role> findByName(String name) {
+        return executor.submit(() -> roleDao.findByName(name));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Role>> findByNames(Collection<String> names) {
+        return executor.submit(() -> roleDao.findByNames(names));
+    }
+
+}
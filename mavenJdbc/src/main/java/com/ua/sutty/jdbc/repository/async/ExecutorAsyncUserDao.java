@@ -0,0 +1,135 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.Page;
+import com.ua.sutty.jdbc.repository.PageCursor;
+import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.UserQuery;
+import com.ua.sutty.jdbc.repository.UserSort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs every call of a blocking {@link UserDao} on a {@link BoundedDaoExecutor}. The calls run on executor
+ * threads, so they never join a {@code TransactionTemplate} unit of work of the submitting thread.
+ */
+public class ExecutorAsyncUserDao implements AsyncUserDao {
+
+    private final UserDao userDao;
+    private final BoundedDaoExecutor executor;
+
+    public ExecutorAsyncUserDao(UserDao userDao, BoundedDaoExecutor executor) {
+        if (userDao == null || executor == null) {
+            throw new NullPointerException();
+        }
+        this.userDao = userDao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Long> create(User user) {
+        return executor.submit(() -> userDao.create(user));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(User user) {
+        return executor.execute(() -> userDao.update(user));
+    }
+
+    @Override
+    public CompletableFuture<Void> patch(UserPatch patch) {
+        return executor.execute(() -> userDao.patch(patch));
+    }
+
+    @Override
+    public CompletableFuture<Void> setRole(Long userId, Long roleId) {
+        return executor.execute(() -> userDao.setRole(userId, roleId));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(User user) {
+        return executor.execute(() -> userDao.remove(user));
+    }
+
+    @Override
+    public CompletableFuture<List<Long>> createAll(Collection<User> users) {
+        return executor.submit(() -> userDao.createAll(users));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAll(Collection<User> users) {
+        return executor.execute(() -> userDao.updateAll(users));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<User> users) {
+        return executor.execute(() -> userDao.removeAll(users));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> findAll() {
+        return executor.submit(userDao::findAll);
+    }
+
+    @Override
+    public CompletableFuture<Page<User>> findPage(Long afterId, int limit) {
+        return executor.submit(() -> userDao.findPage(afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<User>> findPage(UserSort sort, PageCursor after, int limit) {
+        return executor.submit(() -> userDao.findPage(sort, after, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<User>> find(UserQuery query) {
+        return executor.submit(() -> userDao.find(query));
+    }
+
+    @Override
+    public CompletableFuture<Changes<User>> findModifiedSince(long watermark, int limit) {
+        return executor.submit(() -> userDao.findModifiedSince(watermark, limit));
+    }
+
+    @Override
+    public CompletableFuture<User> findByLogin(String login) {
+        return executor.submit(() -> userDao.findByLogin(login));
+    }
+
+    @Override
+    public CompletableFuture<User> findByEmail(String email) {
+        return executor.submit(() -> userDao.findByEmail(email));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findByLogins(Collection<String> logins) {
+        return executor.submit(() -> userDao.findByLogins(logins));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findByEmails(Collection<String> emails) {
+        return executor.submit(() -> userDao.findByEmails(emails));
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, User>> findByIds(Collection<Long> ids) {
+        return executor.submit(() -> userDao.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<List<UserWithRole>> findAllWithRoles() {
+        return executor.submit(userDao::findAllWithRoles);
+    }
+
+    @Override
+    public CompletableFuture<UserWithRole> findByLoginWithRole(String login) {
+        return executor.submit(() -> userDao.findByLoginWithRole(login));
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.ua.sutty.jdbc.repository.cache;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.repository.ForwardingRoleDao;
+import com.ua.sutty.jdbc.repository.RemovalListener;
+import com.ua.sutty.jdbc.repository.RoleDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionContext;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache for {@link #findByName} and {@link #findByNames}. Removing a role also removes its users, so when a
+ * {@link CachingUserDao} is given its entries for those users are dropped as well.
+ */
+public class CachingRoleDao extends ForwardingRoleDao {
+
+    private final LruCache<String, Role> byName;
+    private final CachingUserDao userDao;
+    private final Object writeLock = new Object();
+    private long writes;
+
+    public CachingRoleDao(RoleDao delegate, int maximumSize, long timeToLive, TimeUnit unit) {
+        this(delegate, maximumSize, timeToLive, unit, null);
+    }
+
+    public CachingRoleDao(RoleDao delegate, int maximumSize, long timeToLive, TimeUnit unit, CachingUserDao userDao) {
+        super(delegate);
+        this.byName = new LruCache<>(maximumSize, timeToLive, unit, Role::getId);
+        this.userDao = userDao;
+    }
+
+    @Override
+    public Role findByName(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        Role role = byName.get(name);
+        if (role == null) {
+            long generation;
+            synchronized (writeLock) {
+                generation = writes;
+            }
+            role = delegate().findByName(name);
+            synchronized (writeLock) {
+                if (writes == generation) {
+                    byName.put(name, copy(role));
+                }
+            }
+        }
+        return copy(role);
+    }
+
+    /**
+     * Serves the cached names and looks the rest up in one bulk call.
+     */
+    @Override
+    public Map<String, Role> findByNames(Collection<String> names) {
+        if (names == null || names.contains(null)) {
+            throw new NullPointerException();
+        }
+        Map<String, Role> roles = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : new LinkedHashSet<>(names)) {
+            Role cached = byName.get(name);
+            if (cached == null) {
+                missing.add(name);
+            } else if (cached.getId() != null) {
+                roles.put(name, copy(cached));
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation;
+            synchronized (writeLock) {
+                generation = writes;
+            }
+            Map<String, Role> loaded = delegate().findByNames(missing);
+            synchronized (writeLock) {
+                if (writes == generation) {
+                    for (String name : missing) {
+                        Role role = loaded.get(name);
+                        byName.put(name, role == null ? new Role() : copy(role));
+                    }
+                }
+            }
+            roles.putAll(loaded);
+        }
+        return roles;
+    }
+
+    @Override
+    public Long create(Role role) {
+        try {
+            return super.create(role);
+        } finally {
+            invalidate(Collections.singleton(role));
+        }
+    }
+
+    @Override
+    public void update(Role role) {
+        try {
+            super.update(role);
+        } finally {
+            invalidate(Collections.singleton(role));
+        }
+    }
+
+    @Override
+    public void remove(Role role) {
+        try {
+            super.remove(role);
+        } finally {
+            invalidate(Collections.singleton(role));
+            invalidateUsers(Collections.singleton(role));
+        }
+    }
+
+    @Override
+    public long removeInChunks(Role role, RemovalListener listener) {
+        try {
+            return super.removeInChunks(role, listener);
+        } finally {
+            invalidate(Collections.singleton(role));
+            invalidateUsers(Collections.singleton(role));
+        }
+    }
+
+    /**
+     * Drops every cached role and, with a {@link CachingUserDao}, every cached user, since the resumed roles are
+     * not known in advance.
+     */
+    @Override
+    public int resumeRemovals(RemovalListener listener) {
+        try {
+            return super.resumeRemovals(listener);
+        } finally {
+            invalidateAll();
+            if (userDao != null) {
+                userDao.invalidateAll();
+            }
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        try {
+            return super.createAll(roles);
+        } finally {
+            invalidate(roles);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        try {
+            super.updateAll(roles);
+        } finally {
+            invalidate(roles);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        try {
+            super.removeAll(roles);
+        } finally {
+            invalidate(roles);
+            invalidateUsers(roles);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (writeLock) {
+            writes++;
+            byName.invalidateAll();
+        }
+    }
+
+    public CacheStats getStats() {
+        return byName.stats();
+    }
+
+    /**
+     * Drops the entries of the written roles now and, inside a {@link TransactionTemplate unit of work}, again once
+     * it commits or rolls back.
+     */
+    private void invalidate(Collection<Role> roles) {
+        if (roles == null) {
+            return;
+        }
+        List<Role> written = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            if (role != null) {
+                written.add(new Role(role));
+            }
+        }
+        invalidateNow(written);
+        TransactionContext.afterCompletion(() -> invalidateNow(written));
+    }
+
+    private void invalidateNow(List<Role> roles) {
+        synchronized (writeLock) {
+            writes++;
+            for (Role role : roles) {
+                if (role.getName() != null) {
+                    byName.invalidate(role.getName());
+                }
+                if (role.getId() != null) {
+                    byName.invalidateIndexed(role.getId());
+                }
+            }
+        }
+    }
+
+    private void invalidateUsers(Collection<Role> roles) {
+        if (userDao == null || roles == null) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Role role : roles) {
+            if (role != null && role.getId() != null) {
+                ids.add(role.getId());
+            }
+        }
+        userDao.invalidateRoles(ids);
+    }
+
+    private static Role copy(Role role) {
+        return new Role(role);
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.ua.sutty.jdbc.repository.cache;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.ForwardingUserDao;
+import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionContext;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for {@link #findByLogin} and {@link #findByEmail} and their bulk variants. Lookups that find nothing are cached as
+ * well. Writes made through this instance invalidate the affected entries; writes made elsewhere become visible
+ * once the time to live has passed. Cached users are copied on the way in and out, so callers may modify them.
+ *
+ * <p>Both caches are indexed by user id, so a write evicts the entries of its users by key whatever login or email
+ * they were cached under. A write inside a {@link TransactionTemplate unit of work} is evicted again once the unit
+ * of work commits or rolls back, since until then a read may cache the row as it was, or as it will never be.
+ */
+public class CachingUserDao extends ForwardingUserDao {
+
+    private final LruCache<String, User> byLogin;
+    private final LruCache<String, User> byEmail;
+    private final Object writeLock = new Object();
+    private long writes;
+
+    public CachingUserDao(UserDao delegate, int maximumSize, long timeToLive, TimeUnit unit) {
+        super(delegate);
+        this.byLogin = new LruCache<>(maximumSize, timeToLive, unit, User::getId);
+        this.byEmail = new LruCache<>(maximumSize, timeToLive, unit, User::getId);
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        if (login == null) {
+            throw new NullPointerException();
+        }
+        User user = byLogin.get(login);
+        if (user == null) {
+            long generation = generation();
+            user = delegate().findByLogin(login);
+            putIfUnchanged(byLogin, login, user, generation);
+        }
+        return new User(user);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        if (email == null) {
+            throw new NullPointerException();
+        }
+        User user = byEmail.get(email);
+        if (user == null) {
+            long generation = generation();
+            user = delegate().findByEmail(email);
+            putIfUnchanged(byEmail, email, user, generation);
+        }
+        return new User(user);
+    }
+
+    /**
+     * Serves the cached logins and looks the rest up in one bulk call.
+     */
+    @Override
+    public Map<String, User> findByLogins(Collection<String> logins) {
+        return findAllCached(byLogin, logins, delegate()::findByLogins);
+    }
+
+    /**
+     * Serves the cached emails and looks the rest up in one bulk call.
+     */
+    @Override
+    public Map<String, User> findByEmails(Collection<String> emails) {
+        return findAllCached(byEmail, emails, delegate()::findByEmails);
+    }
+
+    @Override
+    public Long create(User user) {
+        try {
+            return super.create(user);
+        } finally {
+            invalidate(user);
+        }
+    }
+
+    @Override
+    public void update(User user) {
+        try {
+            super.update(user);
+        } finally {
+            invalidate(user);
+        }
+    }
+
+    @Override
+    public void patch(UserPatch patch) {
+        try {
+            super.patch(patch);
+        } finally {
+            if (patch != null) {
+                invalidate(new User(patch.getId(), patch.getLogin(), null, patch.getEmail(), null, null, null, null));
+            }
+        }
+    }
+
+    @Override
+    public void setRole(Long userId, Long roleId) {
+        try {
+            super.setRole(userId, roleId);
+        } finally {
+            invalidate(new User(userId, null, null, null, null, null, null, roleId));
+        }
+    }
+
+    @Override
+    public void remove(User user) {
+        try {
+            super.remove(user);
+        } finally {
+            invalidate(user);
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        try {
+            return super.createAll(users);
+        } finally {
+            invalidateAll(users);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        try {
+            super.updateAll(users);
+        } finally {
+            invalidateAll(users);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        try {
+            super.removeAll(users);
+        } finally {
+            invalidateAll(users);
+        }
+    }
+
+    /**
+     * Drops every cached user with one of the given roles, e.g. after the roles were removed together with their
+     * users.
+     */
+    public void invalidateRoles(Collection<Long> roleIds) {
+        Set<Long> roles = new HashSet<>(roleIds);
+        invalidateRolesNow(roles);
+        TransactionContext.afterCompletion(() -> invalidateRolesNow(roles));
+    }
+
+    private void invalidateRolesNow(Set<Long> roles) {
+        synchronized (writeLock) {
+            writes++;
+            byLogin.invalidateIf(cached -> roles.contains(cached.getRoleId()));
+            byEmail.invalidateIf(cached -> roles.contains(cached.getRoleId()));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (writeLock) {
+            writes++;
+            byLogin.invalidateAll();
+            byEmail.invalidateAll();
+        }
+    }
+
+    public CacheStats getLoginStats() {
+        return byLogin.stats();
+    }
+
+    public CacheStats getEmailStats() {
+        return byEmail.stats();
+    }
+
+    public CacheStats getStats() {
+        return byLogin.stats().plus(byEmail.stats());
+    }
+
+    private Map<String, User> findAllCached(LruCache<String, User> cache, Collection<String> keys,
+                                            Function<Collection<String>, Map<String, User>> loader) {
+        if (keys == null || keys.contains(null)) {
+            throw new NullPointerException();
+        }
+        Map<String, User> users = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            User cached = cache.get(key);
+            if (cached == null) {
+                missing.add(key);
+            } else if (cached.getId() != null) {
+                users.put(key, new User(cached));
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = generation();
+            Map<String, User> loaded = loader.apply(missing);
+            for (String key : missing) {
+                User user = loaded.get(key);
+                putIfUnchanged(cache, key, user == null ? new User() : user, generation);
+                if (user != null) {
+                    users.put(key, user);
+                }
+            }
+        }
+        return users;
+    }
+
+    private long generation() {
+        synchronized (writeLock) {
+            return writes;
+        }
+    }
+
+    private void putIfUnchanged(LruCache<String, User> cache, String key, User user, long generation) {
+        synchronized (writeLock) {
+            if (writes == generation) {
+                cache.put(key, new User(user));
+            }
+        }
+    }
+
+    private void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        invalidateNow(user);
+        User written = new User(user);
+        TransactionContext.afterCompletion(() -> invalidateNow(written));
+    }
+
+    private void invalidateAll(Collection<User> users) {
+        if (users == null) {
+            return;
+        }
+        List<User> written = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user != null) {
+                written.add(new User(user));
+            }
+        }
+        invalidateAllNow(written);
+        TransactionContext.afterCompletion(() -> invalidateAllNow(written));
+    }
+
+    private void invalidateNow(User user) {
+        synchronized (writeLock) {
+            writes++;
+            invalidateKeys(user);
+            invalidateId(user.getId());
+        }
+    }
+
+    private void invalidateAllNow(List<User> users) {
+        synchronized (writeLock) {
+            writes++;
+            for (User user : users) {
+                invalidateKeys(user);
+                invalidateId(user.getId());
+            }
+        }
+    }
+
+    private void invalidateId(Long id) {
+        if (id != null) {
+            byLogin.invalidateIndexed(id);
+            byEmail.invalidateIndexed(id);
+        }
+    }
+
+    private void invalidateKeys(User user) {
+        if (user.getLogin() != null) {
+            byLogin.invalidate(user.getLogin());
+        }
+        if (user.getEmail() != null) {
+            byEmail.invalidate(user.getEmail());
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.ua.sutty.jdbc.repository.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size bounded map evicting the least recently used entry, with a fixed time to live per entry. All access goes
+ * through one lock; lookups are a hash probe plus a relink, so the critical section stays short.
+ *
+ * <p>An optional index maps each value to a secondary key, e.g. the id of a cached entity, so every entry holding
+ * that key can be invalidated with a hash probe instead of a scan. Values indexed to {@code null} are not indexed.
+ */
+public class LruCache<K, V> {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final Function<? super V, ?> indexer;
+    private final Map<Object, Set<K>> index = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        this(maximumSize, timeToLive, unit, null, System::nanoTime);
+    }
+
+    public LruCache(int maximumSize, long timeToLive, TimeUnit unit, Function<? super V, ?> indexer) {
+        this(maximumSize, timeToLive, unit, indexer, System::nanoTime);
+    }
+
+    LruCache(int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker) {
+        this(maximumSize, timeToLive, unit, null, ticker);
+    }
+
+    LruCache(int maximumSize, long timeToLive, TimeUnit unit, Function<? super V, ?> indexer, LongSupplier ticker) {
+        if (maximumSize <= 0 || timeToLive <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.indexer = indexer;
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maximumSize) {
+                    evictions.increment();
+                    unindex(eldest.getKey(), eldest.getValue().value);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        long now = ticker.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAt < 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                unindex(key, entry.value);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, ticker.getAsLong() + timeToLiveNanos);
+        synchronized (entries) {
+            Entry<V> replaced = entries.put(key, entry);
+            if (replaced != null) {
+                unindex(key, replaced.value);
+            }
+            index(key, value);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                unindex(key, removed.value);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry whose value the index maps to {@code indexKey}.
+     *
+     * @throws IllegalStateException if this cache has no index
+     */
+    public void invalidateIndexed(Object indexKey) {
+        if (indexer == null) {
+            throw new IllegalStateException();
+        }
+        synchronized (entries) {
+            Set<K> keys = index.remove(indexKey);
+            if (keys != null) {
+                for (K key : keys) {
+                    entries.remove(key);
+                }
+            }
+        }
+    }
+
+    public void invalidateIf(Predicate<? super V> predicate) {
+        synchronized (entries) {
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> entry = iterator.next();
+                if (predicate.test(entry.getValue().value)) {
+                    iterator.remove();
+                    unindex(entry.getKey(), entry.getValue().value);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            index.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private void index(K key, V value) {
+        Object indexKey = indexer == null ? null : indexer.apply(value);
+        if (indexKey != null) {
+            index.computeIfAbsent(indexKey, k -> new HashSet<>(2)).add(key);
+        }
+    }
+
+    private void unindex(K key, V value) {
+        Object indexKey = indexer == null ? null : indexer.apply(value);
+        if (indexKey != null) {
+            Set<K> keys = index.get(indexKey);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
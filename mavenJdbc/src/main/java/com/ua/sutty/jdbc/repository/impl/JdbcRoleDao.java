@@ -3,31 +3,85 @@ package com.ua.sutty.jdbc.repository.impl;
 import com.ua.sutty.jdbc.domain.Role;
 import com.ua.sutty.jdbc.domain.User;
 import com.ua.sutty.jdbc.repository.AbstractJdbcDao;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.RemovalListener;
 import com.ua.sutty.jdbc.repository.RoleDao;
+import com.ua.sutty.jdbc.repository.RoleRowMapper;
+import com.ua.sutty.jdbc.repository.UserWriteListener;
 import org.apache.commons.dbcp2.BasicDataSource;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
 
-    private Connection connection;
-    private PreparedStatement pst = null;
-    private ResultSet rs = null;
-
     private static final String INSERT_ROLE = String.format("INSERT INTO role(%s)" +
         " VALUES (?);", Role.NAME);
 
+    private static final String INSERT_ROLE_IF_ABSENT = String.format("INSERT INTO role(%1$s)" +
+        " SELECT ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM role WHERE %1$s = ?);", Role.NAME);
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private static final String DELETE_ROLE = String.format("DELETE FROM role WHERE %s = ?;", Role.ID);
 
-    private static final String DELETE_USER_WITH_ROLE = String.format("DELETE FROM user WHERE %s = ?;", User.ROLE_ID);
+    private static final String INSERT_TOMBSTONE = "MERGE INTO role_tombstone(id, change_seq, removed_at) KEY(id)" +
+        " VALUES (?, NEXT VALUE FOR change_seq, CURRENT_TIMESTAMP)";
+
+    private static final String GET_USER_IDS_WITH_ROLE = String.format("SELECT id FROM user WHERE %s = ?" +
+        " ORDER BY id LIMIT ?", User.ROLE_ID);
+
+    /**
+     * Deletes one user only while it still has the role, so a user moved to another role by a concurrent
+     * transaction stays.
+     */
+    private static final String DELETE_USER_WITH_ROLE = String.format("DELETE FROM user WHERE id = ? AND %s = ?",
+        User.ROLE_ID);
+
+    private static final String INSERT_USER_TOMBSTONE = "MERGE INTO user_tombstone(id, change_seq, removed_at)" +
+        " KEY(id) VALUES (?, NEXT VALUE FOR change_seq, CURRENT_TIMESTAMP)";
+
+    private static final String GET_ROLE_ID = "SELECT id FROM role WHERE id = ?";
+
+    private static final String MARK_REMOVAL = "MERGE INTO role_removal(role_id, started_on) KEY(role_id) VALUES (?, ?)";
+
+    private static final String GET_REMOVALS = "SELECT role_id FROM role_removal ORDER BY started_on, role_id";
+
+    private static final String DELETE_REMOVAL = "DELETE FROM role_removal WHERE role_id = ?";
 
     private static final String GET_ROLE_BY_NAME = "SELECT * FROM role WHERE name = ?";
 
-    private static final String UPDATE_ROLE = String.format("UPDATE role SET %s = ?" +
-        "WHERE id = ?", Role.NAME);
+    private static final String[] GET_ROLES_BY_NAMES = inListQueries("SELECT * FROM role WHERE name IN (%s)");
+
+    private static final String UPDATE_ROLE = String.format("UPDATE role SET %s = ?, %2$s = %2$s + 1," +
+        " change_seq = NEXT VALUE FOR change_seq, updated_at = CURRENT_TIMESTAMP" +
+        " WHERE id = ? AND %2$s = COALESCE(?, %2$s)", Role.NAME, Role.VERSION);
+
+    private static final String GET_ROLES_MODIFIED_SINCE =
+        "SELECT * FROM role WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    private static final String GET_ROLES_REMOVED_SINCE =
+        "SELECT id, change_seq FROM role_tombstone WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    private static final String TABLE = "role";
+
+    private static final String INDEX_SCAN = "SELECT name FROM role ORDER BY name";
+
+    private volatile UserWriteListener userWriteListener;
 
     public JdbcRoleDao() {
     }
@@ -36,31 +90,72 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
         super(basicDataSource, dataSource);
     }
 
+    public UserWriteListener getUserWriteListener() {
+        return userWriteListener;
+    }
+
+    /**
+     * Reports every committed role removal, which also removes the users of the role, to
+     * {@code userWriteListener}; {@code null} removes it.
+     */
+    public void setUserWriteListener(UserWriteListener userWriteListener) {
+        this.userWriteListener = userWriteListener;
+    }
+
     @Override
-    public void create(Role role) {
+    protected List<String> getWriteStatements() {
+        return Arrays.asList(UPDATE_ROLE, DELETE_ROLE, INSERT_TOMBSTONE, GET_USER_IDS_WITH_ROLE, DELETE_USER_WITH_ROLE,
+            INSERT_USER_TOMBSTONE, GET_ROLE_ID, MARK_REMOVAL, GET_REMOVALS, DELETE_REMOVAL);
+    }
+
+    @Override
+    protected List<String> getInsertStatements() {
+        return Arrays.asList(INSERT_ROLE_IF_ABSENT, INSERT_ROLE);
+    }
+
+    @Override
+    protected List<String> getReadStatements() {
+        List<String> statements = new ArrayList<>(Arrays.asList(GET_ROLE_BY_NAME, GET_ROLES_MODIFIED_SINCE,
+            GET_ROLES_REMOVED_SINCE));
+        statements.addAll(Arrays.asList(GET_ROLES_BY_NAMES));
+        return statements;
+    }
+
+    @Override
+    protected List<String> getIndexScans() {
+        return Collections.singletonList(INDEX_SCAN);
+    }
+
+    @Override
+    public Long create(Role role) {
         if (role == null) {
             throw new NullPointerException();
         }
-        try {
-            Role roleInBase = findByName(role.getName());
-            connection = super.createConnection();
-            if (roleInBase.getName() != null) {
-                if (roleInBase.getName().equals(role.getName())) {
-                    System.out.println("This role already exist");
-                    return;
+        try (Connection connection = super.createConnection("RoleDao.create");
+             PreparedStatement pst = connection.prepareStatement(INSERT_ROLE_IF_ABSENT, Statement.RETURN_GENERATED_KEYS)) {
+            try {
+                pst.setString(1, role.getName());
+                pst.setString(2, role.getName());
+                Long id = pst.executeUpdate() == 0 ? null : super.generatedKey(pst);
+                connection.commit();
+                if (id == null) {
+                    return null;
+                }
+                restoreOnRollback(Collections.singletonList(role));
+                role.setId(id);
+                role.setVersion(0L);
+                return id;
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    return null;
                 }
+                throw e;
             }
-            PreparedStatement pst = connection.prepareStatement(INSERT_ROLE);
-            pst.setString(1, role.getName());
-            pst.execute();
-            connection.commit();
         } catch (SQLException e) {
-            rollBackTransactional(connection);
             e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
         }
+        return null;
     }
 
     @Override
@@ -68,19 +163,23 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
         if (role == null) {
             throw new NullPointerException();
         }
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(UPDATE_ROLE);
-            pst.setString(1, role.getName());
-            pst.setLong(2, role.getId());
-            pst.execute();
-            connection.commit();
+        try (Connection connection = super.createConnection("RoleDao.update");
+             PreparedStatement pst = connection.prepareStatement(UPDATE_ROLE)) {
+            try {
+                bindUpdate(pst, role);
+                if (pst.executeUpdate() == 0 && role.getVersion() != null) {
+                    rollBackTransactional(connection);
+                    throw new OptimisticLockException(TABLE, role.getId(), role.getVersion());
+                }
+                connection.commit();
+                restoreOnRollback(Collections.singletonList(role));
+                nextVersion(role);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
         } catch (SQLException e) {
-            rollBackTransactional(connection);
             e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
         }
     }
 
@@ -92,57 +191,421 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
         if (role.getId() == null) {
             throw new IllegalArgumentException();
         }
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(DELETE_USER_WITH_ROLE);
-            pst.setLong(1, role.getId());
-            pst.execute();
-            pst = connection.prepareStatement(DELETE_ROLE);
-
-            pst.setLong(1, role.getId());
-            int result = pst.executeUpdate();
-            if (result == 0) {
-                connection.rollback();
+        try (Connection connection = super.createConnection("RoleDao.remove")) {
+            try {
+                removeUsers(connection, role.getId());
+                if (!removeRole(connection, role.getId())) {
+                    connection.rollback();
+                    throw new IllegalArgumentException();
+                }
+                connection.commit();
+                roleRemoved(role.getId());
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public long removeInChunks(Role role, RemovalListener listener) {
+        if (role == null) {
+            throw new NullPointerException();
+        }
+        if (role.getId() == null) {
+            throw new IllegalArgumentException();
+        }
+        try (Connection connection = super.createConnection("RoleDao.removeInChunks")) {
+            try {
+                if (!markRemoval(connection, role.getId())) {
+                    connection.rollback();
+                    throw new IllegalArgumentException();
+                }
+                return removeMarked(connection, role.getId(), listener);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    @Override
+    public int resumeRemovals(RemovalListener listener) {
+        int resumed = 0;
+        try (Connection connection = super.createConnection("RoleDao.resumeRemovals")) {
+            try {
+                List<Long> roleIds = new ArrayList<>();
+                try (PreparedStatement pst = connection.prepareStatement(GET_REMOVALS);
+                     ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        roleIds.add(rs.getLong(1));
+                    }
+                }
+                connection.commit();
+                for (Long roleId : roleIds) {
+                    removeMarked(connection, roleId, listener);
+                    resumed++;
+                }
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return resumed;
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        checkElements(roles);
+        List<Long> ids = new ArrayList<>(roles.size());
+        try (Connection connection = super.createConnection("RoleDao.createAll");
+             PreparedStatement pst = connection.prepareStatement(INSERT_ROLE, Statement.RETURN_GENERATED_KEYS)) {
+            try {
+                super.executeBatch(connection, pst, roles, (statement, role) -> statement.setString(1, role.getName()), ids);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        List<Role> inserted = new ArrayList<>(ids.size());
+        for (Role role : roles) {
+            if (inserted.size() == ids.size()) {
+                break;
+            }
+            inserted.add(role);
+        }
+        restoreOnRollback(inserted);
+        for (int i = 0; i < inserted.size(); i++) {
+            inserted.get(i).setId(ids.get(i));
+            inserted.get(i).setVersion(0L);
+        }
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        checkElements(roles);
+        boolean versioned = roles.stream().anyMatch(role -> role.getVersion() != null);
+        try (Connection connection = super.createConnection("RoleDao.updateAll");
+             PreparedStatement pst = connection.prepareStatement(UPDATE_ROLE)) {
+            try {
+                if (!versioned) {
+                    super.executeBatch(connection, pst, roles, JdbcRoleDao::bindUpdate, null);
+                    return;
+                }
+                List<Role> items = new ArrayList<>(roles);
+                int missed = super.executeCheckedBatch(connection, pst, items, JdbcRoleDao::bindUpdate,
+                    role -> role.getVersion() != null);
+                if (missed >= 0) {
+                    rollBackTransactional(connection);
+                    Role role = items.get(missed);
+                    throw new OptimisticLockException(TABLE, role.getId(), role.getVersion());
+                }
+                restoreOnRollback(items);
+                items.forEach(JdbcRoleDao::nextVersion);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        checkElements(roles);
+        for (Role role : roles) {
+            if (role.getId() == null) {
                 throw new IllegalArgumentException();
             }
-            connection.commit();
+        }
+        try (Connection connection = super.createConnection("RoleDao.removeAll");
+             PreparedStatement deleteRoles = connection.prepareStatement(DELETE_ROLE);
+             PreparedStatement tombstoneRoles = connection.prepareStatement(INSERT_TOMBSTONE)) {
+            try {
+                for (Role role : roles) {
+                    removeUsers(connection, role.getId());
+                    deleteRoles.setLong(1, role.getId());
+                    deleteRoles.addBatch();
+                    tombstoneRoles.setLong(1, role.getId());
+                    tombstoneRoles.addBatch();
+                }
+                deleteRoles.executeBatch();
+                tombstoneRoles.executeBatch();
+                connection.commit();
+                for (Role role : roles) {
+                    roleRemoved(role.getId());
+                }
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
         } catch (SQLException e) {
-            rollBackTransactional(connection);
             e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
         }
     }
 
+    @Override
+    public Changes<Role> findModifiedSince(long watermark, int limit) {
+        if (watermark < 0 || limit <= 0) {
+            throw new IllegalArgumentException();
+        }
+        try (Connection connection = super.createReadConnection("RoleDao.findModifiedSince")) {
+            try {
+                return super.queryChanges(connection, GET_ROLES_MODIFIED_SINCE, GET_ROLES_REMOVED_SINCE, watermark,
+                    limit, RoleRowMapper::new, Role::getId);
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new Changes<>(new ArrayList<>(), new ArrayList<>(), watermark, false);
+    }
+
     @Override
     public Role findByName(String name) {
         if (name == null) {
             throw new NullPointerException();
         }
         Role role = new Role();
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(GET_ROLE_BY_NAME);
+        try (Connection connection = super.createReadConnection("RoleDao.findByName");
+             PreparedStatement pst = connection.prepareStatement(GET_ROLE_BY_NAME)) {
             pst.setString(1, name);
-            rs = pst.executeQuery();
-
-            while (rs.next()) {
-                role.setId(rs.getLong(Role.ID));
-                role.setName(rs.getString(Role.NAME));
+            try (ResultSet rs = pst.executeQuery()) {
+                RoleRowMapper rowMapper = new RoleRowMapper(rs);
+                while (rs.next()) {
+                    role = rowMapper.mapRow(rs);
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
             }
-            connection.commit();
         } catch (SQLException e) {
-            rollBackTransactional(connection);
             e.printStackTrace();
-        } finally {
-            super.closeResultSet(rs);
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
         }
         return role;
     }
 
+    @Override
+    public Map<String, Role> findByNames(Collection<String> names) {
+        if (names == null || names.contains(null)) {
+            throw new NullPointerException();
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(names));
+        Map<String, Role> roles = new HashMap<>(distinct.size() * 4 / 3 + 1);
+        if (distinct.isEmpty()) {
+            return roles;
+        }
+        try (Connection connection = super.createReadConnection("RoleDao.findByNames")) {
+            try {
+                super.queryInChunks(connection, GET_ROLES_BY_NAMES, distinct, RoleRowMapper::new,
+                    role -> roles.put(role.getName(), role));
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return roles;
+    }
+
+    private static void bindUpdate(PreparedStatement pst, Role role) throws SQLException {
+        pst.setString(1, role.getName());
+        pst.setLong(2, role.getId());
+        if (role.getVersion() == null) {
+            pst.setNull(3, Types.BIGINT);
+        } else {
+            pst.setLong(3, role.getVersion());
+        }
+    }
+
+    private static void nextVersion(Role role) {
+        if (role.getVersion() != null) {
+            role.setVersion(role.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Records that the role is being removed and commits, unless the role does not exist.
+     */
+    private static boolean markRemoval(Connection connection, Long roleId) throws SQLException {
+        try (PreparedStatement pst = connection.prepareStatement(GET_ROLE_ID)) {
+            pst.setLong(1, roleId);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+            }
+        }
+        try (PreparedStatement pst = connection.prepareStatement(MARK_REMOVAL)) {
+            pst.setLong(1, roleId);
+            pst.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            pst.executeUpdate();
+        }
+        connection.commit();
+        return true;
+    }
+
+    /**
+     * Deletes the users of a role marked for removal one committed chunk at a time, then the last stragglers, the
+     * role and its marker in one final transaction.
+     */
+    private long removeMarked(Connection connection, Long roleId, RemovalListener listener) throws SQLException {
+        int chunkSize = getCommitInterval();
+        long removed = 0;
+        List<Long> ids;
+        do {
+            ids = findUserIds(connection, roleId, chunkSize);
+            int deleted = removeUsers(connection, roleId, ids);
+            connection.commit();
+            removed += deleted;
+            if (deleted > 0 && listener != null) {
+                listener.onProgress(roleId, removed, false);
+            }
+        } while (ids.size() == chunkSize);
+        removed += removeUsers(connection, roleId);
+        removeRole(connection, roleId);
+        try (PreparedStatement deleteRemoval = connection.prepareStatement(DELETE_REMOVAL)) {
+            deleteRemoval.setLong(1, roleId);
+            deleteRemoval.executeUpdate();
+        }
+        connection.commit();
+        roleRemoved(roleId);
+        if (listener != null) {
+            listener.onProgress(roleId, removed, true);
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes every user of the role, {@link #getBatchSize()} at a time, without committing.
+     *
+     * @return the number of users deleted
+     */
+    private int removeUsers(Connection connection, Long roleId) throws SQLException {
+        int removed = 0;
+        List<Long> ids;
+        while (!(ids = findUserIds(connection, roleId, getBatchSize())).isEmpty()) {
+            removed += removeUsers(connection, roleId, ids);
+        }
+        return removed;
+    }
+
+    private static List<Long> findUserIds(Connection connection, Long roleId, int limit) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement pst = connection.prepareStatement(GET_USER_IDS_WITH_ROLE)) {
+            pst.setLong(1, roleId);
+            pst.setInt(2, limit);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the given users that still have the role, then writes a tombstone for each one deleted, without
+     * committing. Like {@link JdbcUserDao#remove}, the delete comes first and takes the row lock: a concurrent
+     * update of the user commits before it or not at all, and the tombstone draws a later change number.
+     *
+     * @return the number of users deleted
+     */
+    private static int removeUsers(Connection connection, Long roleId, List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement deleteUsers = connection.prepareStatement(DELETE_USER_WITH_ROLE);
+             PreparedStatement tombstoneUsers = connection.prepareStatement(INSERT_USER_TOMBSTONE)) {
+            for (Long id : ids) {
+                deleteUsers.setLong(1, id);
+                deleteUsers.setLong(2, roleId);
+                deleteUsers.addBatch();
+            }
+            int[] counts = deleteUsers.executeBatch();
+            int deleted = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    tombstoneUsers.setLong(1, ids.get(i));
+                    tombstoneUsers.addBatch();
+                    deleted++;
+                }
+            }
+            if (deleted > 0) {
+                tombstoneUsers.executeBatch();
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Deletes the role and writes its tombstone, without committing.
+     *
+     * @return whether the role existed
+     */
+    private static boolean removeRole(Connection connection, Long roleId) throws SQLException {
+        try (PreparedStatement deleteRole = connection.prepareStatement(DELETE_ROLE)) {
+            deleteRole.setLong(1, roleId);
+            if (deleteRole.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        try (PreparedStatement tombstone = connection.prepareStatement(INSERT_TOMBSTONE)) {
+            tombstone.setLong(1, roleId);
+            tombstone.executeUpdate();
+        }
+        return true;
+    }
+
+    private void roleRemoved(Long roleId) {
+        UserWriteListener listener = userWriteListener;
+        if (listener != null) {
+            super.afterCommit(() -> listener.roleRemoved(roleId));
+        }
+    }
+
+    /**
+     * Puts back the ids and versions the caller's roles had before a write that joined a unit of work, if that
+     * unit of work rolls back.
+     */
+    private void restoreOnRollback(List<Role> roles) {
+        if (!super.isTransactional()) {
+            return;
+        }
+        Long[] ids = new Long[roles.size()];
+        Long[] versions = new Long[roles.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = roles.get(i).getId();
+            versions[i] = roles.get(i).getVersion();
+        }
+        super.afterRollback(() -> {
+            for (int i = 0; i < ids.length; i++) {
+                roles.get(i).setId(ids[i]);
+                roles.get(i).setVersion(versions[i]);
+            }
+        });
+    }
+
+    private static void checkElements(Collection<Role> roles) {
+        if (roles == null || roles.contains(null)) {
+            throw new NullPointerException();
+        }
+    }
+
     private void rollBackTransactional(Connection connection) {
         try {
             connection.rollback();
@@ -1,21 +1,41 @@
 package com.ua.sutty.jdbc.repository.impl;
 
+import com.ua.sutty.jdbc.domain.Role;
 import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
 import com.ua.sutty.jdbc.repository.AbstractJdbcDao;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.Page;
+import com.ua.sutty.jdbc.repository.PageCursor;
+import com.ua.sutty.jdbc.repository.ResultSetSpliterator;
 import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.UserQuery;
+import com.ua.sutty.jdbc.repository.UserRowMapper;
+import com.ua.sutty.jdbc.repository.UserSort;
+import com.ua.sutty.jdbc.repository.UserWithRoleRowMapper;
+import com.ua.sutty.jdbc.repository.UserWriteListener;
 import org.apache.commons.dbcp2.BasicDataSource;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
 
-    private Connection connection;
-    private PreparedStatement pst = null;
-    private Statement stmt = null;
-    private ResultSet rs = null;
-
     private static final String INSERT_USER = String.format("INSERT INTO user(%s, %s, %s, %s, %s, %s, %s)" +
         " VALUES (?, ?, ?, ?, ?, ?, ?);", User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME, User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID);
 
@@ -27,8 +47,100 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
 
     private static final String GET_USER_BY_EMAIL = "SELECT * FROM user WHERE email = ?";
 
-    private static final String UPDATE_USER = String.format("UPDATE user SET %s = ?, %s = ?, %s = ?, %s = ?, %s = ?, %s = ?, %s = ? " +
-        "WHERE id = ?", User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME, User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID);
+    private static final String[] GET_USERS_BY_LOGINS = inListQueries("SELECT * FROM user WHERE login IN (%s)");
+
+    private static final String[] GET_USERS_BY_EMAILS = inListQueries("SELECT * FROM user WHERE email IN (%s)");
+
+    private static final String[] GET_USERS_BY_IDS = inListQueries("SELECT * FROM user WHERE id IN (%s)");
+
+    private static final String GET_ALL_USERS_WITH_ROLES = String.format("SELECT u.*, r.%s AS %s FROM user u" +
+        " LEFT JOIN role r ON r.%s = u.%s", Role.NAME, UserWithRoleRowMapper.ROLE_NAME, Role.ID, User.ROLE_ID);
+
+    private static final String GET_USER_WITH_ROLE_BY_LOGIN = GET_ALL_USERS_WITH_ROLES + " WHERE u.login = ?";
+
+    private static final String UPDATE_USER = String.format("UPDATE user SET %s = ?, %s = ?, %s = ?, %s = ?, %s = ?, %s = ?, %s = ?, " +
+        "%8$s = %8$s + 1, change_seq = NEXT VALUE FOR change_seq, updated_at = CURRENT_TIMESTAMP " +
+        "WHERE id = ? AND %8$s = COALESCE(?, %8$s)", User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME,
+        User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID, User.VERSION);
+
+    private static final String INSERT_TOMBSTONE = "MERGE INTO user_tombstone(id, change_seq, removed_at) KEY(id)" +
+        " VALUES (?, NEXT VALUE FOR change_seq, CURRENT_TIMESTAMP)";
+
+    private static final String GET_USERS_MODIFIED_SINCE =
+        "SELECT * FROM user WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    private static final String GET_USERS_REMOVED_SINCE =
+        "SELECT id, change_seq FROM user_tombstone WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    private static final String TABLE = "user";
+
+    private static final String[] PATCH_COLUMNS = {User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME,
+        User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID};
+
+    private static final String PATCH_USER = "UPDATE user SET %1$s%2$s = %2$s + 1, change_seq = NEXT VALUE FOR change_seq," +
+        " updated_at = CURRENT_TIMESTAMP WHERE id = ? AND %2$s = COALESCE(?, %2$s)";
+
+    /**
+     * One statement per mask of changed {@link UserPatch} fields, so patches share at most 127 distinct statements.
+     */
+    private static final String[] PATCH_QUERIES = new String[1 << UserPatch.FIELDS];
+
+    private static final String GET_FIRST_PAGE = "SELECT * FROM user ORDER BY %1$s NULLS FIRST, id LIMIT ?";
+
+    private static final String GET_PAGE_AFTER_VALUE = "SELECT * FROM user WHERE %1$s > ? OR (%1$s = ? AND id > ?) " +
+        "ORDER BY %1$s NULLS FIRST, id LIMIT ?";
+
+    private static final String GET_PAGE_AFTER_NULL = "SELECT * FROM user WHERE %1$s IS NOT NULL OR id > ? " +
+        "ORDER BY %1$s NULLS FIRST, id LIMIT ?";
+
+    private static final String GET_FIRST_PAGE_BY_ID = "SELECT * FROM user ORDER BY id LIMIT ?";
+
+    private static final String GET_PAGE_AFTER_ID = "SELECT * FROM user WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final Map<UserSort, String[]> PAGE_QUERIES = new EnumMap<>(UserSort.class);
+
+    private static final List<String> INDEX_SCANS = Arrays.asList("SELECT login FROM user ORDER BY login",
+        "SELECT email FROM user ORDER BY email", "SELECT role_id FROM user ORDER BY role_id",
+        "SELECT last_name, id FROM user ORDER BY last_name, id", "SELECT change_seq FROM user ORDER BY change_seq");
+
+    private static final int LOGIN_PREFIX = 1;
+    private static final int EMAIL_DOMAIN = 1 << 1;
+    private static final int ROLE = 1 << 2;
+    private static final int BORN_FROM = 1 << 3;
+    private static final int BORN_TO = 1 << 4;
+    private static final int AFTER_VALUE = 1 << 5;
+    private static final int AFTER_NULL = 1 << 6;
+    private static final int AFTER_ID = 1 << 7;
+    private static final int SORT_SHIFT = 8;
+
+    /**
+     * Generated {@link #find} statements by criteria shape: which predicates are set, the cursor kind and the sort.
+     * There are at most a few hundred shapes, whatever the values.
+     */
+    private static final ConcurrentMap<Integer, String> FIND_QUERIES = new ConcurrentHashMap<>();
+
+    static {
+        for (UserSort sort : UserSort.values()) {
+            if (sort == UserSort.ID) {
+                PAGE_QUERIES.put(sort, new String[]{GET_FIRST_PAGE_BY_ID, GET_PAGE_AFTER_ID, GET_PAGE_AFTER_ID});
+            } else {
+                PAGE_QUERIES.put(sort, new String[]{String.format(GET_FIRST_PAGE, sort.getColumn()),
+                    String.format(GET_PAGE_AFTER_VALUE, sort.getColumn()),
+                    String.format(GET_PAGE_AFTER_NULL, sort.getColumn())});
+            }
+        }
+        for (int changed = 1; changed < PATCH_QUERIES.length; changed++) {
+            StringBuilder columns = new StringBuilder();
+            for (int field = 0; field < UserPatch.FIELDS; field++) {
+                if ((changed & 1 << field) != 0) {
+                    columns.append(PATCH_COLUMNS[field]).append(" = ?, ");
+                }
+            }
+            PATCH_QUERIES[changed] = String.format(PATCH_USER, columns, User.VERSION);
+        }
+    }
+
+    private volatile UserWriteListener writeListener;
 
     public JdbcUserDao(BasicDataSource basicDataSource, String dataSource) {
         super(basicDataSource, dataSource);
@@ -37,31 +149,78 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
     public JdbcUserDao() {
     }
 
+    public UserWriteListener getWriteListener() {
+        return writeListener;
+    }
+
+    /**
+     * Reports every committed write to {@code writeListener}, such as a
+     * {@link com.ua.sutty.jdbc.repository.replica.UserReplica}; {@code null} removes it.
+     */
+    public void setWriteListener(UserWriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Of the patch statements only the one of {@link #setRole}: the 127 shapes would not fit the statement pool.
+     */
     @Override
-    public void create(User user) {
+    protected List<String> getWriteStatements() {
+        return Arrays.asList(UPDATE_USER, PATCH_QUERIES[UserPatch.ROLE_ID], DELETE_ADMINISTRATOR_BY_ID,
+            INSERT_TOMBSTONE);
+    }
+
+    @Override
+    protected List<String> getInsertStatements() {
+        return Collections.singletonList(INSERT_USER);
+    }
+
+    /**
+     * Leaves out the {@link #find} statements, which are generated per criteria shape on first use.
+     */
+    @Override
+    protected List<String> getReadStatements() {
+        List<String> statements = new ArrayList<>(Arrays.asList(GET_USER_BY_LOGIN, GET_USER_BY_EMAIL,
+            GET_USER_WITH_ROLE_BY_LOGIN, GET_USERS_MODIFIED_SINCE, GET_USERS_REMOVED_SINCE));
+        statements.addAll(Arrays.asList(GET_USERS_BY_LOGINS));
+        statements.addAll(Arrays.asList(GET_USERS_BY_EMAILS));
+        statements.addAll(Arrays.asList(GET_USERS_BY_IDS));
+        for (String[] queries : PAGE_QUERIES.values()) {
+            statements.addAll(new LinkedHashSet<>(Arrays.asList(queries)));
+        }
+        return statements;
+    }
+
+    @Override
+    protected List<String> getIndexScans() {
+        return INDEX_SCANS;
+    }
+
+    @Override
+    public Long create(User user) {
         if (user == null) {
             throw new NullPointerException();
         }
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(INSERT_USER);
-            pst.setString(1, user.getLogin());
-            pst.setString(2, user.getPassword());
-            pst.setString(3, user.getEmail());
-            pst.setString(4, user.getFirstName());
-            pst.setString(5, user.getLastName());
-            pst.setDate(6, user.getBirthday());
-            pst.setLong(7, user.getRoleId());
-            pst.execute();
-            connection.commit();
-        } catch (SQLException e) {
-            rollBackTransactional(connection);
-            e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
-
+        try (Connection connection = super.createConnection("UserDao.create");
+             PreparedStatement pst = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+            try {
+                bindInsert(pst, user);
+                pst.executeUpdate();
+                Long id = super.generatedKey(pst);
+                connection.commit();
+                restoreOnRollback(Collections.singletonList(user));
+                user.setId(id);
+                user.setVersion(0L);
+                created(Collections.singletonList(user));
+                return id;
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        return null;
     }
 
     @Override
@@ -69,26 +228,101 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         if (user == null) {
             throw new NullPointerException();
         }
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(UPDATE_USER);
-            pst.setString(1, user.getLogin());
-            pst.setString(2, user.getPassword());
-            pst.setString(3, user.getEmail());
-            pst.setString(4, user.getFirstName());
-            pst.setString(5, user.getLastName());
-            pst.setDate(6, user.getBirthday());
-            pst.setLong(7, user.getRoleId());
-            pst.setLong(8, user.getId());
-
-            pst.execute();
-            connection.commit();
-        } catch (SQLException e) {
-            rollBackTransactional(connection);
-            e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
+        try (Connection connection = super.createConnection("UserDao.update");
+             PreparedStatement pst = connection.prepareStatement(UPDATE_USER)) {
+            try {
+                bindUpdate(pst, user);
+                int updated = pst.executeUpdate();
+                if (updated == 0 && user.getVersion() != null) {
+                    rollBackTransactional(connection);
+                    throw new OptimisticLockException(TABLE, user.getId(), user.getVersion());
+                }
+                connection.commit();
+                restoreOnRollback(Collections.singletonList(user));
+                nextVersion(user);
+                if (updated > 0) {
+                    updated(Collections.singletonList(user));
+                }
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void patch(UserPatch patch) {
+        if (patch == null) {
+            throw new NullPointerException();
+        }
+        if (patch.getId() == null) {
+            throw new IllegalArgumentException();
+        }
+        if (patch.isEmpty()) {
+            return;
+        }
+        try (Connection connection = super.createConnection("UserDao.patch");
+             PreparedStatement pst = connection.prepareStatement(PATCH_QUERIES[patch.getChanged()])) {
+            try {
+                int index = bindPatch(pst, patch);
+                pst.setLong(index, patch.getId());
+                if (patch.getVersion() == null) {
+                    pst.setNull(index + 1, Types.BIGINT);
+                } else {
+                    pst.setLong(index + 1, patch.getVersion());
+                }
+                int updated = pst.executeUpdate();
+                if (updated == 0 && patch.getVersion() != null) {
+                    rollBackTransactional(connection);
+                    throw new OptimisticLockException(TABLE, patch.getId(), patch.getVersion());
+                }
+                connection.commit();
+                Long version = patch.getVersion();
+                if (version != null) {
+                    patch.setVersion(version + 1);
+                    super.afterRollback(() -> patch.setVersion(version));
+                }
+                if (updated > 0) {
+                    patched(patch);
+                }
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void setRole(Long userId, Long roleId) {
+        if (userId == null || roleId == null) {
+            throw new NullPointerException();
+        }
+        try (Connection connection = super.createConnection("UserDao.setRole");
+             PreparedStatement pst = connection.prepareStatement(PATCH_QUERIES[UserPatch.ROLE_ID])) {
+            try {
+                pst.setLong(1, roleId);
+                pst.setLong(2, userId);
+                pst.setNull(3, Types.BIGINT);
+                if (pst.executeUpdate() == 0) {
+                    connection.rollback();
+                    throw new IllegalArgumentException();
+                }
+                connection.commit();
+                if (writeListener != null) {
+                    UserPatch patch = new UserPatch(userId);
+                    patch.setRoleId(roleId);
+                    patched(patch);
+                }
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
     }
 
@@ -100,54 +334,290 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         if (user.getId() == null) {
             throw new IllegalArgumentException();
         }
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(DELETE_ADMINISTRATOR_BY_ID);
-            pst.setLong(1, user.getId());
-            int result = pst.executeUpdate();
-            if (result == 0) {
-                connection.rollback();
+        try (Connection connection = super.createConnection("UserDao.remove");
+             PreparedStatement pst = connection.prepareStatement(DELETE_ADMINISTRATOR_BY_ID);
+             PreparedStatement tombstone = connection.prepareStatement(INSERT_TOMBSTONE)) {
+            try {
+                pst.setLong(1, user.getId());
+                int result = pst.executeUpdate();
+                if (result == 0) {
+                    connection.rollback();
+                    throw new IllegalArgumentException();
+                }
+                tombstone.setLong(1, user.getId());
+                tombstone.executeUpdate();
+                connection.commit();
+                removed(Collections.singletonList(user));
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        checkElements(users);
+        List<Long> ids = new ArrayList<>(users.size());
+        try (Connection connection = super.createConnection("UserDao.createAll");
+             PreparedStatement pst = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+            try {
+                super.executeBatch(connection, pst, users, JdbcUserDao::bindInsert, ids);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        List<User> inserted = new ArrayList<>(ids.size());
+        for (User user : users) {
+            if (inserted.size() == ids.size()) {
+                break;
+            }
+            inserted.add(user);
+        }
+        restoreOnRollback(inserted);
+        for (int i = 0; i < inserted.size(); i++) {
+            inserted.get(i).setId(ids.get(i));
+            inserted.get(i).setVersion(0L);
+        }
+        created(inserted);
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        checkElements(users);
+        boolean versioned = users.stream().anyMatch(user -> user.getVersion() != null);
+        try (Connection connection = super.createConnection("UserDao.updateAll");
+             PreparedStatement pst = connection.prepareStatement(UPDATE_USER)) {
+            try {
+                if (!versioned) {
+                    super.executeBatch(connection, pst, users, JdbcUserDao::bindUpdate, null);
+                    updated(new ArrayList<>(users));
+                    return;
+                }
+                List<User> items = new ArrayList<>(users);
+                int missed = super.executeCheckedBatch(connection, pst, items, JdbcUserDao::bindUpdate,
+                    user -> user.getVersion() != null);
+                if (missed >= 0) {
+                    rollBackTransactional(connection);
+                    User user = items.get(missed);
+                    throw new OptimisticLockException(TABLE, user.getId(), user.getVersion());
+                }
+                restoreOnRollback(items);
+                items.forEach(JdbcUserDao::nextVersion);
+                updated(items);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        checkElements(users);
+        for (User user : users) {
+            if (user.getId() == null) {
                 throw new IllegalArgumentException();
             }
-            connection.commit();
+        }
+        try (Connection connection = super.createConnection("UserDao.removeAll");
+             PreparedStatement pst = connection.prepareStatement(DELETE_ADMINISTRATOR_BY_ID);
+             PreparedStatement tombstones = connection.prepareStatement(INSERT_TOMBSTONE)) {
+            try {
+                super.executeBatch(connection, pst, tombstones, users,
+                    (statement, user) -> statement.setLong(1, user.getId()), null);
+                removed(users);
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
         } catch (SQLException e) {
-            rollBackTransactional(connection);
             e.printStackTrace();
-        } finally {
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
         }
     }
 
     @Override
     public List<User> findAll() {
         List<User> users = new ArrayList<>();
+        try (Connection connection = super.createReadConnection("UserDao.findAll");
+             Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(GET_ALL_USERS)) {
+                UserRowMapper rowMapper = new UserRowMapper(rs);
+                while (rs.next()) {
+                    users.add(rowMapper.mapRow(rs));
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        Connection connection = super.createReadConnection("UserDao.streamAll");
+        Statement stmt = null;
+        ResultSet rs = null;
+        boolean lazy = false;
+        UserRowMapper rowMapper;
         try {
-            connection = super.createConnection();
-            stmt = connection.createStatement();
+            connection.setAutoCommit(false);
+            lazy = super.startStreaming(connection);
+            stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(getFetchSize());
             rs = stmt.executeQuery(GET_ALL_USERS);
-            while (rs.next()) {
-                User user = new User();
-                user.setId(rs.getLong(User.ID));
-                user.setLogin(rs.getString(User.LOGIN));
-                user.setPassword(rs.getString(User.PASSWORD));
-                user.setEmail(rs.getString(User.EMAIL));
-                user.setFirstName(rs.getString(User.FIRST_NAME));
-                user.setLastName(rs.getString(User.LAST_NAME));
-                user.setBirthday(rs.getDate(User.BIRTHDAY));
-                user.setRoleId(rs.getLong(User.ROLE_ID));
-                users.add(user);
-            }
-            connection.commit();
-        } catch (SQLException e) {
-            rollBackTransactional(connection);
-            e.printStackTrace();
-        } finally {
+            rowMapper = new UserRowMapper(rs);
+        } catch (SQLException e) {
             super.closeResultSet(rs);
             super.closeStatement(stmt);
+            stopStreaming(connection, lazy);
+            super.rollbackIfTransactional(connection);
             super.closeConnection(connection);
+            e.printStackTrace();
+            return Stream.empty();
         }
-        return users;
+        Runnable release = new StreamRelease(connection, stmt, rs, lazy);
+        return StreamSupport.stream(new ResultSetSpliterator<>(rs, rowMapper, release), false)
+            .onClose(release);
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        return findPage(UserSort.ID, afterId == null ? null : PageCursor.afterId(afterId), limit);
+    }
+
+    @Override
+    public Page<User> findPage(UserSort sort, PageCursor after, int limit) {
+        if (sort == null) {
+            throw new NullPointerException();
+        }
+        if (limit <= 0 || after != null && after.getSort() != sort) {
+            throw new IllegalArgumentException();
+        }
+        String[] queries = PAGE_QUERIES.get(sort);
+        String query = after == null ? queries[0] : sort == UserSort.ID || after.getValue() != null ? queries[1] : queries[2];
+        List<User> users = new ArrayList<>(Math.min(limit + 1, getFetchSize()));
+        try (Connection connection = super.createReadConnection("UserDao.findPage");
+             PreparedStatement pst = connection.prepareStatement(query)) {
+            int index = 1;
+            if (after != null) {
+                if (sort != UserSort.ID && after.getValue() != null) {
+                    pst.setString(index++, after.getValue());
+                    pst.setString(index++, after.getValue());
+                }
+                pst.setLong(index++, after.getId());
+            }
+            pst.setInt(index, limit + 1);
+            try (ResultSet rs = pst.executeQuery()) {
+                UserRowMapper rowMapper = new UserRowMapper(rs);
+                while (rs.next()) {
+                    users.add(rowMapper.mapRow(rs));
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        PageCursor next = null;
+        if (users.size() > limit) {
+            users.remove(limit);
+            User last = users.get(limit - 1);
+            next = new PageCursor(sort, sortValue(sort, last), last.getId());
+        }
+        return new Page<>(users, next);
+    }
+
+    @Override
+    public Page<User> find(UserQuery query) {
+        if (query == null) {
+            throw new NullPointerException();
+        }
+        UserSort sort = query.getSort();
+        PageCursor after = query.getAfter();
+        if (after != null && after.getSort() != sort) {
+            throw new IllegalArgumentException();
+        }
+        int limit = query.getLimit();
+        int shape = shapeOf(query);
+        String sql = FIND_QUERIES.computeIfAbsent(shape, JdbcUserDao::findQuery);
+        List<User> users = new ArrayList<>(Math.min(limit + 1, getFetchSize()));
+        try (Connection connection = super.createReadConnection("UserDao.find");
+             PreparedStatement pst = connection.prepareStatement(sql)) {
+            int index = 1;
+            if ((shape & LOGIN_PREFIX) != 0) {
+                pst.setString(index++, escapeLike(query.getLoginPrefix()) + "%");
+            }
+            if ((shape & EMAIL_DOMAIN) != 0) {
+                pst.setString(index++, "%@" + escapeLike(query.getEmailDomain()));
+            }
+            if ((shape & ROLE) != 0) {
+                pst.setLong(index++, query.getRoleId());
+            }
+            if ((shape & BORN_FROM) != 0) {
+                pst.setDate(index++, query.getBornFrom());
+            }
+            if ((shape & BORN_TO) != 0) {
+                pst.setDate(index++, query.getBornTo());
+            }
+            if ((shape & AFTER_VALUE) != 0) {
+                pst.setString(index++, after.getValue());
+                pst.setString(index++, after.getValue());
+            }
+            if ((shape & (AFTER_VALUE | AFTER_NULL | AFTER_ID)) != 0) {
+                pst.setLong(index++, after.getId());
+            }
+            pst.setInt(index, limit + 1);
+            try (ResultSet rs = pst.executeQuery()) {
+                UserRowMapper rowMapper = new UserRowMapper(rs);
+                while (rs.next()) {
+                    users.add(rowMapper.mapRow(rs));
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        PageCursor next = null;
+        if (users.size() > limit) {
+            users.remove(limit);
+            User last = users.get(limit - 1);
+            next = new PageCursor(sort, sortValue(sort, last), last.getId());
+        }
+        return new Page<>(users, next);
+    }
+
+    @Override
+    public Changes<User> findModifiedSince(long watermark, int limit) {
+        if (watermark < 0 || limit <= 0) {
+            throw new IllegalArgumentException();
+        }
+        try (Connection connection = super.createReadConnection("UserDao.findModifiedSince")) {
+            try {
+                return super.queryChanges(connection, GET_USERS_MODIFIED_SINCE, GET_USERS_REMOVED_SINCE, watermark,
+                    limit, UserRowMapper::new, User::getId);
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new Changes<>(new ArrayList<>(), new ArrayList<>(), watermark, false);
     }
 
     @Override
@@ -155,32 +625,7 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         if (login == null) {
             throw new NullPointerException();
         }
-        User user = new User();
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(GET_USER_BY_LOGIN);
-            pst.setString(1, login);
-            rs = pst.executeQuery();
-            while (rs.next()) {
-                user.setId(rs.getLong(User.ID));
-                user.setLogin(rs.getString(User.LOGIN));
-                user.setPassword(rs.getString(User.PASSWORD));
-                user.setEmail(rs.getString(User.EMAIL));
-                user.setFirstName(rs.getString(User.FIRST_NAME));
-                user.setLastName(rs.getString(User.LAST_NAME));
-                user.setBirthday(rs.getDate(User.BIRTHDAY));
-                user.setRoleId(rs.getLong(User.ROLE_ID));
-            }
-            connection.commit();
-        } catch (SQLException e) {
-            rollBackTransactional(connection);
-            e.printStackTrace();
-        } finally {
-            super.closeResultSet(rs);
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
-        }
-        return user;
+        return findOne("UserDao.findByLogin", GET_USER_BY_LOGIN, login);
     }
 
     @Override
@@ -188,34 +633,336 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         if (email == null) {
             throw new NullPointerException();
         }
+        return findOne("UserDao.findByEmail", GET_USER_BY_EMAIL, email);
+    }
+
+    @Override
+    public Map<String, User> findByLogins(Collection<String> logins) {
+        return findByKeys("UserDao.findByLogins", GET_USERS_BY_LOGINS, logins, User::getLogin);
+    }
+
+    @Override
+    public Map<String, User> findByEmails(Collection<String> emails) {
+        return findByKeys("UserDao.findByEmails", GET_USERS_BY_EMAILS, emails, User::getEmail);
+    }
+
+    @Override
+    public Map<Long, User> findByIds(Collection<Long> ids) {
+        return findByKeys("UserDao.findByIds", GET_USERS_BY_IDS, ids, User::getId);
+    }
+
+    @Override
+    public List<UserWithRole> findAllWithRoles() {
+        List<UserWithRole> users = new ArrayList<>();
+        try (Connection connection = super.createReadConnection("UserDao.findAllWithRoles");
+             Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(GET_ALL_USERS_WITH_ROLES)) {
+                UserWithRoleRowMapper rowMapper = new UserWithRoleRowMapper(rs);
+                while (rs.next()) {
+                    users.add(rowMapper.mapRow(rs));
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+
+    @Override
+    public UserWithRole findByLoginWithRole(String login) {
+        if (login == null) {
+            throw new NullPointerException();
+        }
+        UserWithRole user = new UserWithRole(new User(), null);
+        try (Connection connection = super.createReadConnection("UserDao.findByLoginWithRole");
+             PreparedStatement pst = connection.prepareStatement(GET_USER_WITH_ROLE_BY_LOGIN)) {
+            pst.setString(1, login);
+            try (ResultSet rs = pst.executeQuery()) {
+                UserWithRoleRowMapper rowMapper = new UserWithRoleRowMapper(rs);
+                while (rs.next()) {
+                    user = rowMapper.mapRow(rs);
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return user;
+    }
+
+    private <K> Map<K, User> findByKeys(String operation, String[] queries, Collection<K> keys,
+                                        Function<User, K> keyOf) {
+        if (keys == null || keys.contains(null)) {
+            throw new NullPointerException();
+        }
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, User> users = new HashMap<>(distinct.size() * 4 / 3 + 1);
+        if (distinct.isEmpty()) {
+            return users;
+        }
+        try (Connection connection = super.createReadConnection(operation)) {
+            try {
+                super.queryInChunks(connection, queries, distinct, UserRowMapper::new,
+                    user -> users.put(keyOf.apply(user), user));
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+
+    private User findOne(String operation, String query, String parameter) {
         User user = new User();
-        try {
-            connection = super.createConnection();
-            pst = connection.prepareStatement(GET_USER_BY_EMAIL);
-            pst.setString(1, email);
-            rs = pst.executeQuery();
-            while (rs.next()) {
-                user.setId(rs.getLong(User.ID));
-                user.setLogin(rs.getString(User.LOGIN));
-                user.setPassword(rs.getString(User.PASSWORD));
-                user.setEmail(rs.getString(User.EMAIL));
-                user.setFirstName(rs.getString(User.FIRST_NAME));
-                user.setLastName(rs.getString(User.LAST_NAME));
-                user.setBirthday(rs.getDate(User.BIRTHDAY));
-                user.setRoleId(rs.getLong(User.ROLE_ID));
-            }
-            connection.commit();
-        } catch (SQLException e) {
-            rollBackTransactional(connection);
-            e.printStackTrace();
-        } finally {
-            super.closeResultSet(rs);
-            super.closePreparedStatement(pst);
-            super.closeConnection(connection);
+        try (Connection connection = super.createReadConnection(operation);
+             PreparedStatement pst = connection.prepareStatement(query)) {
+            pst.setString(1, parameter);
+            try (ResultSet rs = pst.executeQuery()) {
+                UserRowMapper rowMapper = new UserRowMapper(rs);
+                while (rs.next()) {
+                    user = rowMapper.mapRow(rs);
+                }
+            } catch (SQLException e) {
+                super.rollbackIfTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
         return user;
     }
 
+    private static int shapeOf(UserQuery query) {
+        int shape = query.getSort().ordinal() << SORT_SHIFT;
+        if (query.getLoginPrefix() != null) {
+            shape |= LOGIN_PREFIX;
+        }
+        if (query.getEmailDomain() != null) {
+            shape |= EMAIL_DOMAIN;
+        }
+        if (query.getRoleId() != null) {
+            shape |= ROLE;
+        }
+        if (query.getBornFrom() != null) {
+            shape |= BORN_FROM;
+        }
+        if (query.getBornTo() != null) {
+            shape |= BORN_TO;
+        }
+        PageCursor after = query.getAfter();
+        if (after != null) {
+            if (query.getSort() == UserSort.ID) {
+                shape |= AFTER_ID;
+            } else {
+                shape |= after.getValue() != null ? AFTER_VALUE : AFTER_NULL;
+            }
+        }
+        return shape;
+    }
+
+    private static String findQuery(int shape) {
+        UserSort sort = UserSort.values()[shape >>> SORT_SHIFT];
+        String column = sort.getColumn();
+        List<String> predicates = new ArrayList<>();
+        if ((shape & LOGIN_PREFIX) != 0) {
+            predicates.add(User.LOGIN + " LIKE ? ESCAPE '\\'");
+        }
+        if ((shape & EMAIL_DOMAIN) != 0) {
+            predicates.add(User.EMAIL + " LIKE ? ESCAPE '\\'");
+        }
+        if ((shape & ROLE) != 0) {
+            predicates.add(User.ROLE_ID + " = ?");
+        }
+        if ((shape & BORN_FROM) != 0) {
+            predicates.add(User.BIRTHDAY + " >= ?");
+        }
+        if ((shape & BORN_TO) != 0) {
+            predicates.add(User.BIRTHDAY + " <= ?");
+        }
+        if ((shape & AFTER_VALUE) != 0) {
+            predicates.add(String.format("(%1$s > ? OR (%1$s = ? AND id > ?))", column));
+        } else if ((shape & AFTER_NULL) != 0) {
+            predicates.add(String.format("(%s IS NOT NULL OR id > ?)", column));
+        } else if ((shape & AFTER_ID) != 0) {
+            predicates.add("id > ?");
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM user");
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        return sql.append(sort == UserSort.ID ? " ORDER BY id" : " ORDER BY " + column + " NULLS FIRST, id")
+            .append(" LIMIT ?").toString();
+    }
+
+    /**
+     * Makes {@code %}, {@code _} and the escape character itself match literally in a {@code LIKE} pattern.
+     */
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static String sortValue(UserSort sort, User user) {
+        switch (sort) {
+            case LOGIN:
+                return user.getLogin();
+            case EMAIL:
+                return user.getEmail();
+            case LAST_NAME:
+                return user.getLastName();
+            default:
+                return null;
+        }
+    }
+
+    private static void bindInsert(PreparedStatement pst, User user) throws SQLException {
+        pst.setString(1, user.getLogin());
+        pst.setString(2, user.getPassword());
+        pst.setString(3, user.getEmail());
+        pst.setString(4, user.getFirstName());
+        pst.setString(5, user.getLastName());
+        pst.setDate(6, user.getBirthday());
+        pst.setLong(7, user.getRoleId());
+    }
+
+    private static void bindUpdate(PreparedStatement pst, User user) throws SQLException {
+        bindInsert(pst, user);
+        pst.setLong(8, user.getId());
+        if (user.getVersion() == null) {
+            pst.setNull(9, Types.BIGINT);
+        } else {
+            pst.setLong(9, user.getVersion());
+        }
+    }
+
+    /**
+     * Binds the changed fields of {@code patch} in column order and returns the index of the next parameter.
+     */
+    private static int bindPatch(PreparedStatement pst, UserPatch patch) throws SQLException {
+        int index = 1;
+        if (patch.isChanged(UserPatch.LOGIN)) {
+            pst.setString(index++, patch.getLogin());
+        }
+        if (patch.isChanged(UserPatch.PASSWORD)) {
+            pst.setString(index++, patch.getPassword());
+        }
+        if (patch.isChanged(UserPatch.EMAIL)) {
+            pst.setString(index++, patch.getEmail());
+        }
+        if (patch.isChanged(UserPatch.FIRST_NAME)) {
+            pst.setString(index++, patch.getFirstName());
+        }
+        if (patch.isChanged(UserPatch.LAST_NAME)) {
+            pst.setString(index++, patch.getLastName());
+        }
+        if (patch.isChanged(UserPatch.BIRTHDAY)) {
+            pst.setDate(index++, patch.getBirthday());
+        }
+        if (patch.isChanged(UserPatch.ROLE_ID)) {
+            pst.setObject(index++, patch.getRoleId(), Types.BIGINT);
+        }
+        return index;
+    }
+
+    /**
+     * Puts back the ids and versions the caller's users had before a write that joined a unit of work, if that
+     * unit of work rolls back.
+     */
+    private void restoreOnRollback(List<User> users) {
+        if (!super.isTransactional()) {
+            return;
+        }
+        Long[] ids = new Long[users.size()];
+        Long[] versions = new Long[users.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = users.get(i).getId();
+            versions[i] = users.get(i).getVersion();
+        }
+        super.afterRollback(() -> {
+            for (int i = 0; i < ids.length; i++) {
+                users.get(i).setId(ids[i]);
+                users.get(i).setVersion(versions[i]);
+            }
+        });
+    }
+
+    /**
+     * Reports the write to the listener once it is committed. A write inside a unit of work is reported with a copy
+     * taken now, as the caller may change its objects before the unit of work commits; the same goes for
+     * {@link #updated}, {@link #patched} and {@link #removed}.
+     */
+    private void created(List<User> users) {
+        UserWriteListener listener = writeListener;
+        if (listener != null) {
+            List<User> snapshot = snapshotOf(users);
+            super.afterCommit(() -> snapshot.forEach(listener::userCreated));
+        }
+    }
+
+    private void updated(List<User> users) {
+        UserWriteListener listener = writeListener;
+        if (listener != null) {
+            List<User> snapshot = snapshotOf(users);
+            super.afterCommit(() -> snapshot.forEach(listener::userUpdated));
+        }
+    }
+
+    private void patched(UserPatch patch) {
+        UserWriteListener listener = writeListener;
+        if (listener != null) {
+            UserPatch snapshot = super.isTransactional() ? new UserPatch(patch) : patch;
+            super.afterCommit(() -> listener.userPatched(snapshot));
+        }
+    }
+
+    private void removed(Collection<User> users) {
+        UserWriteListener listener = writeListener;
+        if (listener != null) {
+            List<Long> ids = new ArrayList<>(users.size());
+            for (User user : users) {
+                ids.add(user.getId());
+            }
+            super.afterCommit(() -> ids.forEach(listener::userRemoved));
+        }
+    }
+
+    private List<User> snapshotOf(List<User> users) {
+        if (!super.isTransactional()) {
+            return users;
+        }
+        List<User> snapshot = new ArrayList<>(users.size());
+        for (User user : users) {
+            snapshot.add(new User(user));
+        }
+        return snapshot;
+    }
+
+    private static void nextVersion(User user) {
+        if (user.getVersion() != null) {
+            user.setVersion(user.getVersion() + 1);
+        }
+    }
+
+    private static void checkElements(Collection<User> users) {
+        if (users == null || users.contains(null)) {
+            throw new NullPointerException();
+        }
+    }
+
     private void rollBackTransactional(Connection connection) {
         try {
             connection.rollback();
@@ -224,5 +971,53 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         }
     }
 
+    /**
+     * The pooled connection, or the unit of work's, must not keep streaming the queries of its next user.
+     */
+    private void stopStreaming(Connection connection, boolean lazy) {
+        if (!lazy) {
+            return;
+        }
+        try {
+            super.stopStreaming(connection);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private class StreamRelease implements Runnable {
+
+        private final Connection connection;
+        private final Statement statement;
+        private final ResultSet resultSet;
+        private final boolean lazy;
+        private boolean released;
+
+        StreamRelease(Connection connection, Statement statement, ResultSet resultSet, boolean lazy) {
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.lazy = lazy;
+        }
+
+        @Override
+        public void run() {
+            if (released) {
+                return;
+            }
+            released = true;
+            closeResultSet(resultSet);
+            closeStatement(statement);
+            stopStreaming(connection, lazy);
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                rollBackTransactional(connection);
+                e.printStackTrace();
+            }
+            closeConnection(connection);
+        }
+
+    }
 
 }
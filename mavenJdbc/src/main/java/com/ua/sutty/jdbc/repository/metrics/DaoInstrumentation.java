@@ -0,0 +1,12 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+/**
+ * Receives one {@link OperationSample} per instrumented DAO call, on the calling thread, when the call releases its
+ * connection. Implementations must be thread-safe and cheap.
+ */
+@FunctionalInterface
+public interface DaoInstrumentation {
+
+    void record(OperationSample sample);
+
+}
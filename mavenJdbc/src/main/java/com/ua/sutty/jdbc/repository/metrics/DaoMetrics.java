@@ -0,0 +1,185 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process {@link DaoInstrumentation}: latency histograms per operation and phase, row and failure counts, the
+ * pool occupancy seen by the latest call, and a slow-query log. Calls slower than the threshold are logged at
+ * {@link Level#WARNING} through {@code java.util.logging} with their phase split, pool counts and SQL.
+ *
+ * <pre>
+ * DaoMetrics metrics = new DaoMetrics(200, TimeUnit.MILLISECONDS);
+ * metrics.registerMBean("main");
+ * userDao.setInstrumentation(metrics);
+ * roleDao.setInstrumentation(metrics);
+ * </pre>
+ */
+public class DaoMetrics implements DaoInstrumentation, DaoMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(DaoMetrics.class.getName());
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final LongAdder slowQueries = new LongAdder();
+    private volatile long slowQueryThresholdNanos;
+    private volatile int poolActive;
+    private volatile int poolIdle;
+    private volatile ObjectName objectName;
+
+    public DaoMetrics() {
+        this(1, TimeUnit.SECONDS);
+    }
+
+    public DaoMetrics(long slowQueryThreshold, TimeUnit unit) {
+        if (slowQueryThreshold < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.slowQueryThresholdNanos = unit.toNanos(slowQueryThreshold);
+    }
+
+    @Override
+    public void record(OperationSample sample) {
+        OperationMetrics metrics = operations.get(sample.getOperation());
+        if (metrics == null) {
+            metrics = operations.computeIfAbsent(sample.getOperation(), operation -> new OperationMetrics());
+        }
+        metrics.record(sample);
+        poolActive = sample.getPoolActive();
+        poolIdle = sample.getPoolIdle();
+        if (sample.getTotalNanos() >= slowQueryThresholdNanos) {
+            slowQueries.increment();
+            if (LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.warning("Slow query: " + sample);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics of {@code operation}, or {@code null} when it has not been called
+     */
+    public OperationStats getOperation(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? null : metrics.snapshot(operation);
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Map.Entry<String, OperationMetrics> entry : new TreeMap<>(operations).entrySet()) {
+            stats.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return stats;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        if (slowQueryThresholdMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    @Override
+    public int getPoolActive() {
+        return poolActive;
+    }
+
+    @Override
+    public int getPoolIdle() {
+        return poolIdle;
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+        slowQueries.reset();
+    }
+
+    /**
+     * Registers this instance with the platform MBean server as
+     * {@code com.ua.sutty.jdbc:type=DaoMetrics,name=<name>}.
+     */
+    public ObjectName registerMBean(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        try {
+            ObjectName objectName = new ObjectName("com.ua.sutty.jdbc:type=DaoMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void unregisterMBean() {
+        ObjectName objectName = this.objectName;
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        this.objectName = null;
+    }
+
+    private static final class OperationMetrics {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final Histogram acquire = new Histogram();
+        private final Histogram execute = new Histogram();
+        private final Histogram fetch = new Histogram();
+        private final Histogram commit = new Histogram();
+        private final Histogram total = new Histogram();
+
+        void record(OperationSample sample) {
+            calls.increment();
+            if (sample.isFailed()) {
+                failures.increment();
+            }
+            rows.add(sample.getRows());
+            acquire.record(sample.getAcquireNanos());
+            execute.record(sample.getExecuteNanos());
+            fetch.record(sample.getFetchNanos());
+            commit.record(sample.getCommitNanos());
+            total.record(sample.getTotalNanos());
+        }
+
+        OperationStats snapshot(String operation) {
+            return new OperationStats(operation, calls.sum(), failures.sum(), rows.sum(), acquire.snapshot(),
+                execute.snapshot(), fetch.snapshot(), commit.snapshot(), total.snapshot());
+        }
+
+    }
+
+}
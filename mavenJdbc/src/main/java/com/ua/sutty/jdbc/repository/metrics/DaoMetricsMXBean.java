@@ -0,0 +1,30 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link DaoMetrics}.
+ */
+public interface DaoMetricsMXBean {
+
+    List<OperationStats> getOperations();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+    long getSlowQueryCount();
+
+    /**
+     * @return active connections of the pool, as sampled by the most recent call
+     */
+    int getPoolActive();
+
+    /**
+     * @return idle connections of the pool, as sampled by the most recent call
+     */
+    int getPoolIdle();
+
+    void reset();
+
+}
@@ -0,0 +1,205 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection wrapper that times one DAO call: statement execution, {@code ResultSet.next()}, commit and rollback.
+ * The connection and its statements are dynamic proxies, as they see a handful of calls per operation; result
+ * sets are wrapped by {@link TimedResultSet}.
+ * Closing the connection reports the call to the {@link DaoInstrumentation} and closes the wrapped connection.
+ * A call uses its connection from one thread, so the counters are plain fields.
+ */
+public final class InstrumentedConnection implements InvocationHandler {
+
+    private static final int MAX_STATEMENTS = 4;
+
+    private final Connection connection;
+    private final String operation;
+    private final DaoInstrumentation instrumentation;
+    private final long startNanos;
+    private final long acquireNanos;
+    private final int poolActive;
+    private final int poolIdle;
+    private final List<String> statements = new ArrayList<>(1);
+    private long executeNanos;
+    private long fetchNanos;
+    private long commitNanos;
+    private long rows;
+    private boolean failed;
+    private boolean recorded;
+
+    private InstrumentedConnection(Connection connection, String operation, DaoInstrumentation instrumentation,
+                                   long startNanos, long acquireNanos, int poolActive, int poolIdle) {
+        this.connection = connection;
+        this.operation = operation;
+        this.instrumentation = instrumentation;
+        this.startNanos = startNanos;
+        this.acquireNanos = acquireNanos;
+        this.poolActive = poolActive;
+        this.poolIdle = poolIdle;
+    }
+
+    /**
+     * @param startNanos   {@link System#nanoTime()} before the connection was requested
+     * @param acquireNanos time it took to get the connection
+     */
+    public static Connection wrap(Connection connection, String operation, DaoInstrumentation instrumentation,
+                                  long startNanos, long acquireNanos, int poolActive, int poolIdle) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            new InstrumentedConnection(connection, operation, instrumentation, startNanos, acquireNanos, poolActive,
+                poolIdle));
+    }
+
+    /**
+     * Reports a call that could not get a connection at all.
+     */
+    public static void recordAcquireFailure(String operation, DaoInstrumentation instrumentation, long acquireNanos,
+                                            int poolActive, int poolIdle) {
+        instrumentation.record(new OperationSample(operation, acquireNanos, 0, 0, 0, acquireNanos, 0, true,
+            poolActive, poolIdle, new ArrayList<>()));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                try {
+                    return forward(connection, method, args);
+                } finally {
+                    record();
+                }
+            case "commit":
+            case "rollback":
+                if ("rollback".equals(method.getName())) {
+                    failed = true;
+                }
+                long start = System.nanoTime();
+                try {
+                    return forward(connection, method, args);
+                } finally {
+                    commitNanos += System.nanoTime() - start;
+                }
+            case "createStatement":
+                return wrap(Statement.class, forward(connection, method, args), null);
+            case "prepareStatement":
+                return wrap(PreparedStatement.class, forward(connection, method, args), (String) args[0]);
+            case "prepareCall":
+                return wrap(CallableStatement.class, forward(connection, method, args), (String) args[0]);
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return forward(connection, method, args);
+        }
+    }
+
+    private void record() {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+        instrumentation.record(new OperationSample(operation, acquireNanos, executeNanos, fetchNanos, commitNanos,
+            System.nanoTime() - startNanos, rows, failed, poolActive, poolIdle, statements));
+    }
+
+    void onFetch(long nanos, boolean row) {
+        fetchNanos += nanos;
+        if (row) {
+            rows++;
+        }
+    }
+
+    void onFailure() {
+        failed = true;
+    }
+
+    private void addStatement(String sql) {
+        if (sql != null && statements.size() < MAX_STATEMENTS && !statements.contains(sql)) {
+            statements.add(sql);
+        }
+    }
+
+    private Object wrap(Class<?> type, Object statement, String sql) {
+        addStatement(sql);
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new StatementHandler(statement));
+    }
+
+    private Object invokeTimed(Object target, Method method, Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return forward(target, method, args);
+        } catch (SQLException e) {
+            failed = true;
+            throw e;
+        } finally {
+            executeNanos += System.nanoTime() - start;
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+
+        StatementHandler(Object statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                    if (args != null) {
+                        addStatement((String) args[0]);
+                    }
+                    return wrapResultSet((ResultSet) invokeTimed(statement, method, args));
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    if (args != null && args.length > 0 && args[0] instanceof String) {
+                        addStatement((String) args[0]);
+                    }
+                    return invokeTimed(statement, method, args);
+                case "getResultSet":
+                    return wrapResultSet((ResultSet) forward(statement, method, args));
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(statement, method, args);
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            return new TimedResultSet(resultSet, InstrumentedConnection.this);
+        }
+
+    }
+
+}
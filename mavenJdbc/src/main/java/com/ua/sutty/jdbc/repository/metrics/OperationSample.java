@@ -0,0 +1,108 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Timings of one DAO call, split into the phases it spent on its connection. {@code fetch} is the time spent in
+ * {@code ResultSet.next()}; mapping rows between those calls is not counted. Pool counts are sampled just before
+ * the connection was acquired.
+ */
+public final class OperationSample {
+
+    private final String operation;
+    private final long acquireNanos;
+    private final long executeNanos;
+    private final long fetchNanos;
+    private final long commitNanos;
+    private final long totalNanos;
+    private final long rows;
+    private final boolean failed;
+    private final int poolActive;
+    private final int poolIdle;
+    private final List<String> statements;
+
+    public OperationSample(String operation, long acquireNanos, long executeNanos, long fetchNanos, long commitNanos,
+                           long totalNanos, long rows, boolean failed, int poolActive, int poolIdle,
+                           List<String> statements) {
+        this.operation = operation;
+        this.acquireNanos = acquireNanos;
+        this.executeNanos = executeNanos;
+        this.fetchNanos = fetchNanos;
+        this.commitNanos = commitNanos;
+        this.totalNanos = totalNanos;
+        this.rows = rows;
+        this.failed = failed;
+        this.poolActive = poolActive;
+        this.poolIdle = poolIdle;
+        this.statements = Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * @return e.g. {@code UserDao.findByLogin}
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    public long getCommitNanos() {
+        return commitNanos;
+    }
+
+    /**
+     * @return wall time from requesting the connection to releasing it
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return rows read from result sets
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return whether a statement failed or the call rolled back
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public int getPoolActive() {
+        return poolActive;
+    }
+
+    public int getPoolIdle() {
+        return poolIdle;
+    }
+
+    /**
+     * @return the distinct SQL the call prepared or executed, in order
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.3f ms (acquire %.3f, execute %.3f, fetch %.3f, commit %.3f), %d rows%s," +
+                " pool active %d idle %d: %s", operation, totalNanos / 1e6, acquireNanos / 1e6, executeNanos / 1e6,
+            fetchNanos / 1e6, commitNanos / 1e6, rows, failed ? ", failed" : "", poolActive, poolIdle,
+            String.join("; ", statements));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the metrics of one DAO operation, e.g. {@code UserDao.findByLogin}.
+ */
+public class OperationStats {
+
+    private final String operation;
+    private final long calls;
+    private final long failures;
+    private final long rows;
+    private final PhaseStats acquire;
+    private final PhaseStats execute;
+    private final PhaseStats fetch;
+    private final PhaseStats commit;
+    private final PhaseStats total;
+
+    @ConstructorProperties({"operation", "calls", "failures", "rows", "acquire", "execute", "fetch", "commit", "total"})
+    public OperationStats(String operation, long calls, long failures, long rows, PhaseStats acquire,
+                          PhaseStats execute, PhaseStats fetch, PhaseStats commit, PhaseStats total) {
+        this.operation = operation;
+        this.calls = calls;
+        this.failures = failures;
+        this.rows = rows;
+        this.acquire = acquire;
+        this.execute = execute;
+        this.fetch = fetch;
+        this.commit = commit;
+        this.total = total;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public PhaseStats getAcquire() {
+        return acquire;
+    }
+
+    public PhaseStats getExecute() {
+        return execute;
+    }
+
+    public PhaseStats getFetch() {
+        return fetch;
+    }
+
+    public PhaseStats getCommit() {
+        return commit;
+    }
+
+    public PhaseStats getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return operation + ": " + calls + " calls, " + failures + " failures, " + rows + " rows; total " + total +
+            "; acquire " + acquire + "; execute " + execute + "; fetch " + fetch + "; commit " + commit;
+    }
+
+}
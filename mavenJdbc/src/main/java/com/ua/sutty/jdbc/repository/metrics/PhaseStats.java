@@ -0,0 +1,50 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of one {@link Histogram}, in microseconds.
+ */
+public class PhaseStats {
+
+    private final long count;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+    public PhaseStats(long count, double meanMicros, long p50Micros, long p99Micros, long maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, p50 <%d, p99 <%d, max %d us", meanMicros, p50Micros, p99Micros, maxMicros);
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.ua.sutty.jdbc.repository.migration;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts listed in {@code db/migration/migrations.txt} ({@code V<version>__<description>.sql})
+ * that are not yet recorded in the {@code schema_version} table, in version order, each in its own transaction.
+ * Scripts are split on {@code ;} at the end of a line and {@code --} comment lines are skipped.
+ */
+public class SchemaMigrator {
+
+    public static final String DEFAULT_LOCATION = "db/migration";
+
+    private static final String INDEX = "migrations.txt";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version(" +
+        "version INT PRIMARY KEY, description VARCHAR(255), installed_on TIMESTAMP)";
+    private static final String GET_CURRENT_VERSION = "SELECT MAX(version) FROM schema_version";
+    private static final String INSERT_VERSION =
+        "INSERT INTO schema_version(version, description, installed_on) VALUES (?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final String location;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this(dataSource, DEFAULT_LOCATION);
+    }
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        if (dataSource == null || location == null) {
+            throw new NullPointerException();
+        }
+        this.dataSource = dataSource;
+        this.location = location;
+    }
+
+    /**
+     * @return the version the schema is at afterwards
+     */
+    public int migrate() {
+        return migrate(Integer.MAX_VALUE);
+    }
+
+    public synchronized int migrate(int targetVersion) {
+        List<Migration> migrations = loadMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            int current = currentVersion(connection);
+            for (Migration migration : migrations) {
+                if (migration.version <= current || migration.version > targetVersion) {
+                    continue;
+                }
+                apply(connection, migration);
+                current = migration.version;
+            }
+            return current;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int currentVersion() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            return currentVersion(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_VERSION_TABLE);
+            int version;
+            try (ResultSet resultSet = statement.executeQuery(GET_CURRENT_VERSION)) {
+                resultSet.next();
+                version = resultSet.getInt(1);
+            }
+            connection.commit();
+            return version;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(INSERT_VERSION)) {
+            for (String sql : migration.statements) {
+                statement.execute(sql);
+            }
+            record.setInt(1, migration.version);
+            record.setString(2, migration.description);
+            record.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            record.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException e1) {
+                e1.printStackTrace();
+            }
+            throw new SQLException("Migration V" + migration.version + " failed: " + e.getMessage(),
+                e.getSQLState(), e);
+        }
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        int previous = 0;
+        for (String name : readLines(location + "/" + INDEX)) {
+            Matcher matcher = SCRIPT_NAME.matcher(name);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Unexpected migration name " + name);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previous) {
+                throw new IllegalStateException("Migrations out of order at " + name);
+            }
+            previous = version;
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '),
+                splitStatements(readLines(location + "/" + name))));
+        }
+        return migrations;
+    }
+
+    static List<String> splitStatements(List<String> lines) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : lines) {
+            if (line.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (line.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static List<String> readLines(String resource) {
+        InputStream inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new IllegalStateException("Missing migration resource " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return lines;
+    }
+
+    private static final class Migration {
+
+        private final int version;
+        private final String description;
+        private final List<String> statements;
+
+        Migration(int version, String description, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.ua.sutty.jdbc.repository.replica;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.UserWriteListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Read-side copy of the {@code user} table in a compact column layout, for services that do little but
+ * {@code findByLogin} and {@code findByEmail}: lookups hash into primitive index tables and never touch JDBC.
+ * {@link #load} copies the table in bulk; registered as the write listener of the
+ * {@link com.ua.sutty.jdbc.repository.impl.JdbcUserDao} and {@link com.ua.sutty.jdbc.repository.impl.JdbcRoleDao}
+ * it applies their writes as they commit, those of a unit of work only once it commits and never if it rolls back.
+ * Writes made any other way are not seen until the next load.
+ *
+ * <pre>
+ * UserReplica replica = new UserReplica();
+ * userDao.setWriteListener(replica);
+ * roleDao.setUserWriteListener(replica);
+ * replica.load(userDao);
+ * </pre>
+ *
+ * Lookups run lock-free under an optimistic read stamp and fall back to a read lock only when a write
+ * interleaved. Like the DAO finders they return a new {@code User}, empty when nothing matches.
+ */
+public class UserReplica implements UserWriteListener {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private final Object loading = new Object();
+    private UserTable table;
+    private List<Consumer<UserTable>> replay;
+
+    public UserReplica() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedUsers number of users to size the arrays for before they need to grow
+     */
+    public UserReplica(int expectedUsers) {
+        if (expectedUsers < 0) {
+            throw new IllegalArgumentException();
+        }
+        table = new UserTable(expectedUsers);
+    }
+
+    /**
+     * Replaces the contents with every user streamed from {@code userDao}. Lookups keep being served from the
+     * previous contents until the load completes, and writes reported meanwhile are applied to both, so the
+     * listener should be registered before the first load.
+     *
+     * @return the number of users held afterwards
+     */
+    public int load(UserDao userDao) {
+        if (userDao == null) {
+            throw new NullPointerException();
+        }
+        synchronized (loading) {
+            int expected;
+            long stamp = lock.writeLock();
+            try {
+                replay = new ArrayList<>();
+                expected = table.size();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            UserTable loaded = new UserTable(expected);
+            try (Stream<User> users = userDao.streamAll()) {
+                users.forEach(loaded::put);
+            } catch (RuntimeException | Error e) {
+                stamp = lock.writeLock();
+                replay = null;
+                lock.unlockWrite(stamp);
+                throw e;
+            }
+            stamp = lock.writeLock();
+            try {
+                for (Consumer<UserTable> write : replay) {
+                    write.accept(loaded);
+                }
+                replay = null;
+                table = loaded;
+                return loaded.size();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public User findByLogin(String login) {
+        if (login == null) {
+            throw new NullPointerException();
+        }
+        byte[] key = UserTable.utf8(login);
+        int hash = UserTable.hash(key);
+        return read(table -> table.findByLogin(key, hash));
+    }
+
+    public User findByEmail(String email) {
+        if (email == null) {
+            throw new NullPointerException();
+        }
+        byte[] key = UserTable.utf8(email);
+        int hash = UserTable.hash(key);
+        return read(table -> table.findByEmail(key, hash));
+    }
+
+    public User findById(Long id) {
+        if (id == null) {
+            throw new NullPointerException();
+        }
+        long key = id;
+        return read(table -> table.findById(key));
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return bytes held by the arrays of the replica, including the unused capacity they grow into
+     */
+    public long getFootprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            return table.footprint();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void userCreated(User user) {
+        User copy = new User(user);
+        write(table -> table.put(copy));
+    }
+
+    @Override
+    public void userUpdated(User user) {
+        User copy = new User(user);
+        write(table -> table.put(copy));
+    }
+
+    @Override
+    public void userPatched(UserPatch patch) {
+        UserPatch copy = new UserPatch(patch.getId(), patch.getVersion());
+        if (patch.isChanged(UserPatch.LOGIN)) {
+            copy.setLogin(patch.getLogin());
+        }
+        if (patch.isChanged(UserPatch.PASSWORD)) {
+            copy.setPassword(patch.getPassword());
+        }
+        if (patch.isChanged(UserPatch.EMAIL)) {
+            copy.setEmail(patch.getEmail());
+        }
+        if (patch.isChanged(UserPatch.FIRST_NAME)) {
+            copy.setFirstName(patch.getFirstName());
+        }
+        if (patch.isChanged(UserPatch.LAST_NAME)) {
+            copy.setLastName(patch.getLastName());
+        }
+        if (patch.isChanged(UserPatch.BIRTHDAY)) {
+            copy.setBirthday(patch.getBirthday());
+        }
+        if (patch.isChanged(UserPatch.ROLE_ID)) {
+            copy.setRoleId(patch.getRoleId());
+        }
+        write(table -> table.patch(copy));
+    }
+
+    @Override
+    public void userRemoved(Long id) {
+        if (id != null) {
+            long key = id;
+            write(table -> table.remove(key));
+        }
+    }
+
+    @Override
+    public void roleRemoved(Long roleId) {
+        if (roleId != null) {
+            long key = roleId;
+            write(table -> table.removeRole(key));
+        }
+    }
+
+    private User read(Function<UserTable, User> lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                User user = lookup.apply(table);
+                if (lock.validate(stamp)) {
+                    return user == null ? new User() : user;
+                }
+            } catch (RuntimeException e) {
+                // a write moved the arrays under the lookup; repeated below under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            User user = lookup.apply(table);
+            return user == null ? new User() : user;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void write(Consumer<UserTable> write) {
+        long stamp = lock.writeLock();
+        try {
+            write.accept(table);
+            if (replay != null) {
+                replay.add(write);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+}
@@ -0,0 +1,436 @@
+package com.ua.sutty.jdbc.repository.replica;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Column storage behind {@link UserReplica}. Every user occupies one slot: its id, version, role id and birthday
+ * live in primitive arrays, and its five strings in one record of a shared UTF-8 byte arena, each prefixed by a
+ * two-byte length. Id, login and email are indexed by open-addressing tables of slot numbers with linear probing
+ * and backward-shift deletion, kept at most half full. Rewritten records are appended and the old bytes counted as
+ * garbage until the arena is compacted.
+ *
+ * <p>Not thread-safe: {@link UserReplica} serializes writes and validates reads.
+ */
+final class UserTable {
+
+    private static final int LOGIN = 0;
+    private static final int EMAIL = 1;
+    private static final int PASSWORD = 2;
+    private static final int FIRST_NAME = 3;
+    private static final int LAST_NAME = 4;
+    private static final int STRINGS = 5;
+
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final long NULL_ROLE = Long.MIN_VALUE;
+    private static final int NULL_DAY = Integer.MIN_VALUE;
+    private static final int FREE = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int COMPACT_THRESHOLD = 1 << 16;
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    private long[] ids;
+    private long[] versions;
+    private long[] roleIds;
+    private int[] birthdays;
+    private int[] records;
+    private int[] loginHashes;
+    private int[] emailHashes;
+    private int[] free;
+    private int freeCount;
+    private int slots;
+    private int size;
+
+    private int[] idIndex;
+    private int[] loginIndex;
+    private int[] emailIndex;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int garbage;
+
+    UserTable(int capacity) {
+        resize(Math.max(MIN_CAPACITY, capacity));
+        arena = new byte[(int) Math.min(MAX_ARENA, Math.max(COMPACT_THRESHOLD, capacity * 32L))];
+    }
+
+    static int hash(byte[] key) {
+        int h = 1;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        h *= 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long footprint() {
+        return 8L * (ids.length + versions.length + roleIds.length)
+            + 4L * (birthdays.length + records.length + loginHashes.length + emailHashes.length + free.length)
+            + 4L * (idIndex.length + loginIndex.length + emailIndex.length)
+            + arena.length;
+    }
+
+    User findById(long id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : read(slot);
+    }
+
+    User findByLogin(byte[] login, int hash) {
+        int slot = find(loginIndex, loginHashes, LOGIN, login, hash);
+        return slot < 0 ? null : read(slot);
+    }
+
+    User findByEmail(byte[] email, int hash) {
+        int slot = find(emailIndex, emailHashes, EMAIL, email, hash);
+        return slot < 0 ? null : read(slot);
+    }
+
+    /**
+     * Inserts or overwrites the row of {@code user.getId()}. A {@code null} version means the row was written
+     * without one, which bumped its version in the database.
+     */
+    void put(User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        long id = user.getId();
+        int slot = slotOf(id);
+        long version;
+        if (slot < 0) {
+            slot = allocate();
+            ids[slot] = id;
+            insert(idIndex, hash(id), slot);
+            version = 0;
+            size++;
+        } else {
+            unindexStrings(slot);
+            garbage += recordLength(records[slot]);
+            records[slot] = FREE;
+            version = versions[slot] + 1;
+        }
+        versions[slot] = user.getVersion() != null ? user.getVersion() : version;
+        roleIds[slot] = user.getRoleId() == null ? NULL_ROLE : user.getRoleId();
+        birthdays[slot] = user.getBirthday() == null ? NULL_DAY : (int) user.getBirthday().toLocalDate().toEpochDay();
+        byte[] login = utf8(user.getLogin());
+        byte[] email = utf8(user.getEmail());
+        records[slot] = append(login, email, utf8(user.getPassword()), utf8(user.getFirstName()),
+            utf8(user.getLastName()));
+        if (login != null) {
+            loginHashes[slot] = hash(login);
+            insert(loginIndex, loginHashes[slot], slot);
+        }
+        if (email != null) {
+            emailHashes[slot] = hash(email);
+            insert(emailIndex, emailHashes[slot], slot);
+        }
+        compactIfWasteful();
+    }
+
+    void patch(UserPatch patch) {
+        int slot = patch.getId() == null ? -1 : slotOf(patch.getId());
+        if (slot < 0) {
+            return;
+        }
+        User user = read(slot);
+        if (patch.isChanged(UserPatch.LOGIN)) {
+            user.setLogin(patch.getLogin());
+        }
+        if (patch.isChanged(UserPatch.PASSWORD)) {
+            user.setPassword(patch.getPassword());
+        }
+        if (patch.isChanged(UserPatch.EMAIL)) {
+            user.setEmail(patch.getEmail());
+        }
+        if (patch.isChanged(UserPatch.FIRST_NAME)) {
+            user.setFirstName(patch.getFirstName());
+        }
+        if (patch.isChanged(UserPatch.LAST_NAME)) {
+            user.setLastName(patch.getLastName());
+        }
+        if (patch.isChanged(UserPatch.BIRTHDAY)) {
+            user.setBirthday(patch.getBirthday());
+        }
+        if (patch.isChanged(UserPatch.ROLE_ID)) {
+            user.setRoleId(patch.getRoleId());
+        }
+        user.setVersion(patch.getVersion());
+        put(user);
+    }
+
+    void remove(long id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        delete(idIndex, hash(id), slot);
+        unindexStrings(slot);
+        garbage += recordLength(records[slot]);
+        records[slot] = FREE;
+        free[freeCount++] = slot;
+        size--;
+        compactIfWasteful();
+    }
+
+    void removeRole(long roleId) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (records[slot] != FREE && roleIds[slot] == roleId) {
+                remove(ids[slot]);
+            }
+        }
+    }
+
+    private int slotOf(long id) {
+        int[] index = idIndex;
+        int mask = index.length - 1;
+        for (int i = hash(id) & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            int entry = index[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int find(int[] index, int[] hashes, int field, byte[] key, int hash) {
+        int mask = index.length - 1;
+        for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            int entry = index[i];
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            if (hashes[slot] == hash && matches(records[slot], field, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int record, int field, byte[] key) {
+        int offset = fieldOffset(record, field);
+        if (length(offset) != key.length) {
+            return false;
+        }
+        offset += 2;
+        for (int i = 0; i < key.length; i++) {
+            if (arena[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private User read(int slot) {
+        int offset = records[slot];
+        String[] strings = new String[STRINGS];
+        for (int field = 0; field < STRINGS; field++) {
+            int length = length(offset);
+            offset += 2;
+            if (length != NULL_LENGTH) {
+                strings[field] = new String(arena, offset, length, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+        Date birthday = birthdays[slot] == NULL_DAY ? null : Date.valueOf(LocalDate.ofEpochDay(birthdays[slot]));
+        Long roleId = roleIds[slot] == NULL_ROLE ? null : roleIds[slot];
+        User user = new User(ids[slot], strings[LOGIN], strings[PASSWORD], strings[EMAIL], strings[FIRST_NAME],
+            strings[LAST_NAME], birthday, roleId);
+        user.setVersion(versions[slot]);
+        return user;
+    }
+
+    private int length(int offset) {
+        return (arena[offset] & 0xFF) << 8 | arena[offset + 1] & 0xFF;
+    }
+
+    private int fieldOffset(int record, int field) {
+        int offset = record;
+        for (int f = 0; f < field; f++) {
+            int length = length(offset);
+            offset += length == NULL_LENGTH ? 2 : 2 + length;
+        }
+        return offset;
+    }
+
+    private int recordLength(int record) {
+        return fieldOffset(record, STRINGS) - record;
+    }
+
+    private int append(byte[]... strings) {
+        int length = 0;
+        for (byte[] string : strings) {
+            if (string != null && string.length >= NULL_LENGTH) {
+                throw new IllegalArgumentException("Value of " + string.length + " bytes is too long");
+            }
+            length += string == null ? 2 : 2 + string.length;
+        }
+        ensureArena(length);
+        int record = arenaSize;
+        int offset = arenaSize;
+        for (byte[] string : strings) {
+            int stringLength = string == null ? NULL_LENGTH : string.length;
+            arena[offset++] = (byte) (stringLength >>> 8);
+            arena[offset++] = (byte) stringLength;
+            if (string != null) {
+                System.arraycopy(string, 0, arena, offset, string.length);
+                offset += string.length;
+            }
+        }
+        arenaSize = offset;
+        return record;
+    }
+
+    private void ensureArena(int length) {
+        if (arenaSize + (long) length <= arena.length) {
+            return;
+        }
+        long needed = (long) arenaSize - garbage + length;
+        if (needed > MAX_ARENA) {
+            throw new IllegalStateException("Replica arena is full");
+        }
+        int capacity = (int) Math.min(MAX_ARENA, Math.max(needed + (needed >> 1), arena.length));
+        rewriteArena(capacity);
+    }
+
+    private void compactIfWasteful() {
+        if (garbage > COMPACT_THRESHOLD && garbage > arenaSize / 2) {
+            rewriteArena(arena.length);
+        }
+    }
+
+    /**
+     * Copies the live records into a fresh arena of {@code capacity} bytes, dropping the garbage.
+     */
+    private void rewriteArena(int capacity) {
+        byte[] rewritten = new byte[capacity];
+        int offset = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            int record = records[slot];
+            if (record == FREE) {
+                continue;
+            }
+            int length = recordLength(record);
+            System.arraycopy(arena, record, rewritten, offset, length);
+            records[slot] = offset;
+            offset += length;
+        }
+        arena = rewritten;
+        arenaSize = offset;
+        garbage = 0;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (slots == ids.length) {
+            resize(ids.length * 2);
+        }
+        return slots++;
+    }
+
+    private void resize(int capacity) {
+        if (ids == null) {
+            ids = new long[capacity];
+            versions = new long[capacity];
+            roleIds = new long[capacity];
+            birthdays = new int[capacity];
+            records = new int[capacity];
+            loginHashes = new int[capacity];
+            emailHashes = new int[capacity];
+            free = new int[capacity];
+        } else {
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            roleIds = Arrays.copyOf(roleIds, capacity);
+            birthdays = Arrays.copyOf(birthdays, capacity);
+            records = Arrays.copyOf(records, capacity);
+            loginHashes = Arrays.copyOf(loginHashes, capacity);
+            emailHashes = Arrays.copyOf(emailHashes, capacity);
+            free = Arrays.copyOf(free, capacity);
+        }
+        int indexLength = Integer.highestOneBit(capacity - 1) << 2;
+        idIndex = new int[indexLength];
+        loginIndex = new int[indexLength];
+        emailIndex = new int[indexLength];
+        for (int slot = 0; slot < slots; slot++) {
+            if (records[slot] == FREE) {
+                continue;
+            }
+            insert(idIndex, hash(ids[slot]), slot);
+            if (length(fieldOffset(records[slot], LOGIN)) != NULL_LENGTH) {
+                insert(loginIndex, loginHashes[slot], slot);
+            }
+            if (length(fieldOffset(records[slot], EMAIL)) != NULL_LENGTH) {
+                insert(emailIndex, emailHashes[slot], slot);
+            }
+        }
+    }
+
+    private void unindexStrings(int slot) {
+        if (length(fieldOffset(records[slot], LOGIN)) != NULL_LENGTH) {
+            delete(loginIndex, loginHashes[slot], slot);
+        }
+        if (length(fieldOffset(records[slot], EMAIL)) != NULL_LENGTH) {
+            delete(emailIndex, emailHashes[slot], slot);
+        }
+    }
+
+    private static void insert(int[] index, int hash, int slot) {
+        int mask = index.length - 1;
+        int i = hash & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private void delete(int[] index, int hash, int slot) {
+        int mask = index.length - 1;
+        int i = hash & mask;
+        while (index[i] != slot + 1) {
+            if (index[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int entry = index[j];
+            int home = hashOf(index, entry - 1) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                index[i] = entry;
+                i = j;
+            }
+        }
+        index[i] = 0;
+    }
+
+    private int hashOf(int[] index, int slot) {
+        if (index == idIndex) {
+            return hash(ids[slot]);
+        }
+        return index == loginIndex ? loginHashes[slot] : emailHashes[slot];
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.repository.ForwardingRoleDao;
+import com.ua.sutty.jdbc.repository.RoleDao;
+
+/**
+ * Sends {@code create}, {@code update} and {@code remove} through a {@link GroupCommitter} like
+ * {@link GroupCommitUserDao}; everything else is forwarded directly.
+ */
+public class GroupCommitRoleDao extends ForwardingRoleDao {
+
+    private final GroupCommitter committer;
+
+    public GroupCommitRoleDao(RoleDao delegate, GroupCommitter committer) {
+        super(delegate);
+        if (committer == null) {
+            throw new NullPointerException();
+        }
+        this.committer = committer;
+    }
+
+    public GroupCommitter getCommitter() {
+        return committer;
+    }
+
+    @Override
+    public Long create(Role role) {
+        return committer.execute(() -> delegate().create(role));
+    }
+
+    @Override
+    public void update(Role role) {
+        committer.execute(() -> {
+            delegate().update(role);
+            return null;
+        });
+    }
+
+    @Override
+    public void remove(Role role) {
+        committer.execute(() -> {
+            delegate().remove(role);
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.ForwardingUserDao;
+import com.ua.sutty.jdbc.repository.UserDao;
+
+/**
+ * Sends the single-user writes through a {@link GroupCommitter}: {@code create}, {@code update}, {@code patch},
+ * {@code setRole} and {@code remove} return once the group they joined has committed and throw what the wrapped
+ * DAO threw. A statement failure the wrapped DAO would only have printed surfaces as
+ * {@link IllegalStateException}. Finders and the bulk writes, which already commit once per call, are forwarded
+ * directly.
+ */
+public class GroupCommitUserDao extends ForwardingUserDao {
+
+    private final GroupCommitter committer;
+
+    public GroupCommitUserDao(UserDao delegate, GroupCommitter committer) {
+        super(delegate);
+        if (committer == null) {
+            throw new NullPointerException();
+        }
+        this.committer = committer;
+    }
+
+    public GroupCommitter getCommitter() {
+        return committer;
+    }
+
+    @Override
+    public Long create(User user) {
+        return committer.execute(() -> delegate().create(user));
+    }
+
+    @Override
+    public void update(User user) {
+        committer.execute(() -> {
+            delegate().update(user);
+            return null;
+        });
+    }
+
+    @Override
+    public void patch(UserPatch patch) {
+        committer.execute(() -> {
+            delegate().patch(patch);
+            return null;
+        });
+    }
+
+    @Override
+    public void setRole(Long userId, Long roleId) {
+        committer.execute(() -> {
+            delegate().setRole(userId, roleId);
+            return null;
+        });
+    }
+
+    @Override
+    public void remove(User user) {
+        committer.execute(() -> {
+            delegate().remove(user);
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,303 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces writes submitted by concurrent callers into shared transactions, so a burst of single-row writes pays
+ * one commit per group instead of one per call. A flusher thread takes the first queued write, keeps collecting
+ * until {@code maxBatchSize} writes are queued or {@code maxDelay} has passed, and runs them in order in one
+ * {@link TransactionTemplate unit of work}. Every caller's future completes only after that unit of work has
+ * committed.
+ *
+ * <p>Each write runs behind its own savepoint. A write that throws, or whose statement fails and is rolled back
+ * by the DAO, is rolled back to its savepoint alone and its future fails with that exception, or with
+ * {@link IllegalStateException} for a failed statement; the rest of the group still commits. If the commit itself
+ * fails, every write of the group fails with that exception. Actions a write registered on the
+ * {@link TransactionContext} follow the fate of that write: they run after the group commits, or are rolled back
+ * with its savepoint.
+ *
+ * <p>The writes must use {@code dataSource}, the same pool instance the DAOs are configured with, to join the
+ * group's connection.
+ */
+public class GroupCommitter implements AutoCloseable {
+
+    private static final AtomicInteger COMMITTERS = new AtomicInteger();
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final Write<Void> stop = new Write<>(null);
+    private final Object lock = new Object();
+    private final Thread flusher;
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private boolean closed;
+
+    /**
+     * @param maxBatchSize most writes committed together
+     * @param maxDelay     longest time the first write of a group waits for others; {@code 0} commits whatever
+     *                     queued up while the previous group was committing
+     */
+    public GroupCommitter(DataSource dataSource, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        if (dataSource == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (maxBatchSize <= 0 || maxDelay < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(dataSource);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.flusher = new Thread(this::run, "group-commit-" + COMMITTERS.incrementAndGet());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues the write. The future completes with its result once its group has committed, or exceptionally as
+     * described above; after {@link #close()} it fails at once with {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> write) {
+        if (write == null) {
+            throw new NullPointerException();
+        }
+        Write<T> queued = new Write<>(write);
+        synchronized (lock) {
+            if (closed) {
+                queued.future.completeExceptionally(new RejectedExecutionException("Group committer is closed"));
+                return queued.future;
+            }
+            queue.add(queued);
+        }
+        return queued.future;
+    }
+
+    /**
+     * Submits the write and waits for its group to commit, rethrowing its failure. Inside a unit of work already
+     * running on this thread for the same data source the write joins that unit of work instead and runs at once.
+     */
+    public <T> T execute(Supplier<T> write) {
+        if (write == null) {
+            throw new NullPointerException();
+        }
+        if (TransactionContext.current(dataSource) != null) {
+            return write.get();
+        }
+        try {
+            return submit(write).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxDelay(TimeUnit unit) {
+        return unit.convert(maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return writes queued and not yet picked up by the flusher
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return transactions run by the flusher, committed or not
+     */
+    public long getGroupCount() {
+        return groups.sum();
+    }
+
+    /**
+     * @return writes run by the flusher, committed or not
+     */
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Stops accepting writes and waits until the ones already queued are committed.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(stop);
+        }
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Write<?>> group = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            Write<?> write = take();
+            if (write == stop) {
+                break;
+            }
+            group.add(write);
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (group.size() < maxBatchSize) {
+                write = queue.poll();
+                if (write == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || (write = poll(remaining)) == null) {
+                        break;
+                    }
+                }
+                if (write == stop) {
+                    stopping = true;
+                    break;
+                }
+                group.add(write);
+            }
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void commit(List<Write<?>> group) {
+        groups.increment();
+        writes.add(group.size());
+        try {
+            transactionTemplate.execute(context -> {
+                Connection connection = context.getConnection();
+                for (Write<?> write : group) {
+                    write.run(context, connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            for (Write<?> write : group) {
+                if (write.failure == null) {
+                    write.failure = e;
+                }
+            }
+        }
+        for (Write<?> write : group) {
+            if (write.failure != null) {
+                failures.increment();
+            }
+            write.complete();
+        }
+    }
+
+    private Write<?> take() {
+        while (true) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                // only close() stops the flusher, so queued writes are never abandoned
+            }
+        }
+    }
+
+    private Write<?> poll(long nanos) {
+        try {
+            return queue.poll(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            return null;
+        }
+    }
+
+    private static final class Write<T> {
+
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Throwable failure;
+
+        Write(Supplier<T> task) {
+            this.task = task;
+        }
+
+        void run(TransactionContext context, Connection connection) {
+            Savepoint savepoint;
+            try {
+                savepoint = connection.setSavepoint();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            int mark = context.getSynchronizationMark();
+            try {
+                result = task.get();
+                if (context.isRollbackOnly()) {
+                    failure = new IllegalStateException("Write rolled back after a failed statement");
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            try {
+                if (failure == null) {
+                    connection.releaseSavepoint(savepoint);
+                } else {
+                    connection.rollback(savepoint);
+                    context.clearRollbackOnly();
+                    context.rolledBackTo(mark);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void complete() {
+            if (failure == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    T doInTransaction(TransactionContext context);
+
+}
@@ -0,0 +1,294 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One connection bound to the current thread for the duration of {@link TransactionTemplate#execute}. DAOs obtain
+ * it through {@link #connectionFor(DataSource)} and see a view of it on which {@code commit}, {@code close} and
+ * {@code setAutoCommit} do nothing and {@code rollback()} only marks the unit of work as failed, so the template
+ * decides once whether to commit. Statements prepared through the view are cached for the lifetime of the context.
+ *
+ * <p>Work that must only happen once the writes are durable, such as notifying listeners, is queued with
+ * {@link #afterCommit}; state changed in anticipation of a commit, such as a generated id set on an entity, is
+ * undone through {@link #afterRollback}.
+ */
+public final class TransactionContext {
+
+    private static final ThreadLocal<Map<DataSource, TransactionContext>> BOUND =
+        ThreadLocal.withInitial(IdentityHashMap::new);
+
+    private final DataSource dataSource;
+    private final Connection connection;
+    private final Connection view;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final List<Synchronization> synchronizations = new ArrayList<>();
+    private boolean rollbackOnly;
+
+    TransactionContext(DataSource dataSource, Connection connection) {
+        this.dataSource = dataSource;
+        this.connection = connection;
+        this.view = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new ConnectionView());
+    }
+
+    /**
+     * @return the connection of the unit of work running on this thread for {@code dataSource}, or {@code null}
+     */
+    public static Connection connectionFor(DataSource dataSource) {
+        Map<DataSource, TransactionContext> bound = BOUND.get();
+        if (bound.isEmpty()) {
+            return null;
+        }
+        TransactionContext context = bound.get(dataSource);
+        return context == null ? null : context.view;
+    }
+
+    /**
+     * @return the unit of work running on this thread for {@code dataSource}, or {@code null}
+     */
+    public static TransactionContext current(DataSource dataSource) {
+        Map<DataSource, TransactionContext> bound = BOUND.get();
+        return bound.isEmpty() ? null : bound.get(dataSource);
+    }
+
+    /**
+     * Runs {@code action} once more when each unit of work running on this thread ends, whether it commits or
+     * rolls back; does nothing outside one. Meant for callers that react to a write at once without knowing which
+     * data source it went to, such as a cache dropping entries that a read could refill before the write commits.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        for (TransactionContext context : BOUND.get().values()) {
+            context.afterCommit(action);
+            context.afterRollback(action);
+        }
+    }
+
+    void bind() {
+        BOUND.get().put(dataSource, this);
+    }
+
+    void unbind() {
+        Map<DataSource, TransactionContext> bound = BOUND.get();
+        bound.remove(dataSource);
+        if (bound.isEmpty()) {
+            BOUND.remove();
+        }
+    }
+
+    public Connection getConnection() {
+        return view;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    void clearRollbackOnly() {
+        rollbackOnly = false;
+    }
+
+    /**
+     * Runs {@code action} on this thread once the unit of work has committed, in registration order. It is
+     * dropped if the unit of work, or the savepoint of the write that registered it, rolls back.
+     */
+    public void afterCommit(Runnable action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        synchronizations.add(new Synchronization(action, true));
+    }
+
+    /**
+     * Runs {@code action} on this thread if the unit of work, or the savepoint of the write that registered it,
+     * rolls back, in reverse registration order.
+     */
+    public void afterRollback(Runnable action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        synchronizations.add(new Synchronization(action, false));
+    }
+
+    /**
+     * @return a mark to pass to {@link #rolledBackTo} when the work done from now on is rolled back to a savepoint
+     */
+    int getSynchronizationMark() {
+        return synchronizations.size();
+    }
+
+    void committed() {
+        List<Synchronization> registered = new ArrayList<>(synchronizations);
+        synchronizations.clear();
+        for (Synchronization synchronization : registered) {
+            if (synchronization.afterCommit) {
+                synchronization.run();
+            }
+        }
+    }
+
+    void rolledBack() {
+        rolledBackTo(0);
+    }
+
+    void rolledBackTo(int mark) {
+        List<Synchronization> discarded = synchronizations.subList(mark, synchronizations.size());
+        List<Synchronization> registered = new ArrayList<>(discarded);
+        discarded.clear();
+        for (int i = registered.size() - 1; i >= 0; i--) {
+            if (!registered.get(i).afterCommit) {
+                registered.get(i).run();
+            }
+        }
+    }
+
+    Connection getTargetConnection() {
+        return connection;
+    }
+
+    int getCachedStatementCount() {
+        return statements.size();
+    }
+
+    void closeStatements() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        statements.clear();
+    }
+
+    private PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement statement = statements.get(key);
+        if (statement == null) {
+            PreparedStatement target = connection.prepareStatement(sql, autoGeneratedKeys);
+            statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new StatementView(target));
+            statements.put(key, statement);
+        }
+        return statement;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionView implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "rollback":
+                    if (args == null) {
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "prepareStatement":
+                    if (args.length == 1) {
+                        return prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                    }
+                    if (args.length == 2 && args[1] instanceof Integer) {
+                        return prepare((String) args[0], (Integer) args[1]);
+                    }
+                    break;
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TransactionContext[" + connection + "]";
+                default:
+                    break;
+            }
+            return TransactionContext.invoke(connection, method, args);
+        }
+
+    }
+
+    private static final class Synchronization {
+
+        private final Runnable action;
+        private final boolean afterCommit;
+
+        Synchronization(Runnable action, boolean afterCommit) {
+            this.action = action;
+            this.afterCommit = afterCommit;
+        }
+
+        /**
+         * The outcome is settled by the time this runs, so a failing action cannot change it and must not keep
+         * the remaining ones from running.
+         */
+        void run() {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+    }
+
+    private static final class StatementView implements InvocationHandler {
+
+        private final PreparedStatement target;
+
+        StatementView(PreparedStatement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    target.clearParameters();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return TransactionContext.invoke(target, method, args);
+            }
+        }
+
+    }
+
+}
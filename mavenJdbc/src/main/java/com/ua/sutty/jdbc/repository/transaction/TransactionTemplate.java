@@ -0,0 +1,108 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs a unit of work on one connection: every DAO using the same data source inside the callback reuses that
+ * connection and its prepared statements, and the work is committed once at the end. A nested {@code execute}
+ * on the same data source joins the running unit of work.
+ *
+ * <pre>
+ * User user = new TransactionTemplate(dataSource).execute(context -&gt; {
+ *     User found = userDao.findByLogin(login);
+ *     found.setRoleId(roleDao.findByName("ADMIN").getId());
+ *     userDao.update(found);
+ *     return found;
+ * });
+ * </pre>
+ *
+ * The DAOs report failed statements by rolling back; inside a unit of work that marks it rollback-only, and
+ * {@code execute} then rolls back and throws {@link IllegalStateException}. Exceptions thrown by the callback roll
+ * back and propagate unchanged.
+ *
+ * <p>Actions registered with {@link TransactionContext#afterCommit} or {@link TransactionContext#afterRollback}
+ * run once the connection has been returned to the pool, so DAO calls they make run on their own connections.
+ */
+public class TransactionTemplate {
+
+    private final DataSource dataSource;
+
+    public TransactionTemplate(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new NullPointerException();
+        }
+        this.dataSource = dataSource;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public <T> T execute(TransactionCallback<T> callback) {
+        if (callback == null) {
+            throw new NullPointerException();
+        }
+        TransactionContext running = TransactionContext.current(dataSource);
+        if (running != null) {
+            return callback.doInTransaction(running);
+        }
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        TransactionContext context = new TransactionContext(dataSource, connection);
+        context.bind();
+        boolean committed = false;
+        try {
+            T result;
+            try {
+                result = callback.doInTransaction(context);
+            } catch (RuntimeException | Error e) {
+                rollback(connection);
+                throw e;
+            }
+            if (context.isRollbackOnly()) {
+                rollback(connection);
+                throw new IllegalStateException("Unit of work rolled back after a failed statement");
+            }
+            try {
+                connection.commit();
+                committed = true;
+            } catch (SQLException e) {
+                rollback(connection);
+                throw new RuntimeException(e);
+            }
+            return result;
+        } finally {
+            context.unbind();
+            context.closeStatements();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            if (committed) {
+                context.committed();
+            } else {
+                context.rolledBack();
+            }
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
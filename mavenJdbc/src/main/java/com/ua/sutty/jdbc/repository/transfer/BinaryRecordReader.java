@@ -0,0 +1,101 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Reads the {@link TransferFormat#BINARY} format written by {@link BinaryRecordWriter}. Each record is fetched
+ * whole by its length prefix before it is decoded, and records with an unknown tag are skipped.
+ */
+public class BinaryRecordReader implements RecordReader {
+
+    private final ChannelInput input;
+    private boolean ended;
+    private Role role;
+    private User user;
+
+    public BinaryRecordReader(ReadableByteChannel channel) throws IOException {
+        this.input = new ChannelInput(channel);
+        ByteBuffer buffer = input.require(Integer.BYTES + 1);
+        int magic = buffer.getInt();
+        byte version = buffer.get();
+        if (magic != BinaryRecordWriter.MAGIC || version != BinaryRecordWriter.FORMAT_VERSION) {
+            throw new IOException("Not a version " + BinaryRecordWriter.FORMAT_VERSION + " binary transfer");
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        role = null;
+        user = null;
+        while (!ended) {
+            byte tag = input.require(1).get();
+            if (tag == BinaryRecordWriter.END) {
+                ended = true;
+                break;
+            }
+            int length = input.require(Integer.BYTES).getInt();
+            ByteBuffer buffer = input.require(length);
+            if (tag == BinaryRecordWriter.ROLE) {
+                role = new Role(getLong(buffer), getString(buffer));
+                role.setVersion(getLong(buffer));
+                return true;
+            }
+            if (tag == BinaryRecordWriter.USER) {
+                user = new User(getLong(buffer), getString(buffer), getString(buffer), getString(buffer),
+                    getString(buffer), getString(buffer), getDate(buffer), getLong(buffer));
+                user.setVersion(getLong(buffer));
+                return true;
+            }
+            buffer.position(buffer.position() + length);
+        }
+        return false;
+    }
+
+    @Override
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Leaves the channel open, see {@link RecordReader}.
+     */
+    @Override
+    public void close() {
+    }
+
+    private static Long getLong(ByteBuffer buffer) {
+        boolean present = buffer.get() != 0;
+        long value = buffer.getLong();
+        return present ? value : null;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+            StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static Date getDate(ByteBuffer buffer) {
+        Long epochDay = getLong(buffer);
+        return epochDay == null ? null : Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the {@link TransferFormat#BINARY} format: the {@link #MAGIC} int and a {@link #FORMAT_VERSION} byte, then
+ * per record a tag byte ({@link #ROLE}, {@link #USER}), the payload length as an int and the payload, and finally
+ * an {@link #END} tag. Payload fields are written in column order; a nullable long is a presence byte followed by
+ * the value, a string its UTF-8 length ({@code -1} for {@code null}) followed by the bytes, and a date its epoch
+ * day as a nullable long. All numbers are big-endian.
+ */
+public class BinaryRecordWriter implements RecordWriter {
+
+    public static final int MAGIC = 0x53555459;
+    public static final byte FORMAT_VERSION = 1;
+    public static final byte END = 0;
+    public static final byte ROLE = 1;
+    public static final byte USER = 2;
+
+    private static final int LONG_SIZE = 1 + Long.BYTES;
+
+    private final ChannelOutput output;
+
+    public BinaryRecordWriter(WritableByteChannel channel) throws IOException {
+        this.output = new ChannelOutput(channel);
+        ByteBuffer buffer = output.reserve(Integer.BYTES + 1);
+        buffer.putInt(MAGIC).put(FORMAT_VERSION);
+        output.release(buffer);
+    }
+
+    @Override
+    public void write(Role role) throws IOException {
+        byte[] name = bytes(role.getName());
+        int length = 2 * LONG_SIZE + size(name);
+        ByteBuffer buffer = output.reserve(1 + Integer.BYTES + length);
+        buffer.put(ROLE).putInt(length);
+        putLong(buffer, role.getId());
+        putString(buffer, name);
+        putLong(buffer, role.getVersion());
+        output.release(buffer);
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        byte[] login = bytes(user.getLogin());
+        byte[] password = bytes(user.getPassword());
+        byte[] email = bytes(user.getEmail());
+        byte[] firstName = bytes(user.getFirstName());
+        byte[] lastName = bytes(user.getLastName());
+        int length = 4 * LONG_SIZE + size(login) + size(password) + size(email) + size(firstName) + size(lastName);
+        ByteBuffer buffer = output.reserve(1 + Integer.BYTES + length);
+        buffer.put(USER).putInt(length);
+        putLong(buffer, user.getId());
+        putString(buffer, login);
+        putString(buffer, password);
+        putString(buffer, email);
+        putString(buffer, firstName);
+        putString(buffer, lastName);
+        putLong(buffer, user.getBirthday() == null ? null : user.getBirthday().toLocalDate().toEpochDay());
+        putLong(buffer, user.getRoleId());
+        putLong(buffer, user.getVersion());
+        output.release(buffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        ByteBuffer buffer = output.reserve(1);
+        buffer.put(END);
+        output.release(buffer);
+        output.flush();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putLong(ByteBuffer buffer, Long value) {
+        if (value == null) {
+            buffer.put((byte) 0).putLong(0L);
+        } else {
+            buffer.put((byte) 1).putLong(value);
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+}
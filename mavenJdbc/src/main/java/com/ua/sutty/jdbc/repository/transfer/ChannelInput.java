@@ -0,0 +1,51 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Read buffer behind a channel, shared by the binary reader.
+ */
+final class ChannelInput {
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(ChannelOutput.BUFFER_SIZE);
+    private boolean eof;
+
+    ChannelInput(ReadableByteChannel channel) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Returns the buffer holding at least {@code bytes} unread bytes.
+     *
+     * @throws EOFException if the channel ends first
+     */
+    ByteBuffer require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        if (bytes > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(bytes);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes && !eof) {
+            eof = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        if (buffer.remaining() < bytes) {
+            throw new EOFException("Truncated transfer data");
+        }
+        return buffer;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Write buffer in front of a channel, shared by the writers.
+ */
+final class ChannelOutput {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    ChannelOutput(WritableByteChannel channel) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        this.channel = channel;
+    }
+
+    /**
+     * Returns the buffer with at least {@code bytes} free, flushing it first if needed; a record larger than the
+     * buffer gets a buffer of its own, which {@link #release} writes out.
+     */
+    ByteBuffer reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (bytes > buffer.capacity()) {
+                return ByteBuffer.allocate(bytes);
+            }
+        }
+        return buffer;
+    }
+
+    void release(ByteBuffer reserved) throws IOException {
+        if (reserved != buffer) {
+            reserved.flip();
+            writeFully(reserved);
+        }
+    }
+
+    void put(byte[] bytes) throws IOException {
+        ByteBuffer target = reserve(bytes.length);
+        target.put(bytes);
+        release(target);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+}
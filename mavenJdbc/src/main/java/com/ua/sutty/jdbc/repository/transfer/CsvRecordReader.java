@@ -0,0 +1,140 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the {@link TransferFormat#CSV} format. Blank lines are skipped; an unknown table name or a wrong number of
+ * fields fails with the line number.
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private final Reader reader;
+    private final char[] chars = new char[ChannelOutput.BUFFER_SIZE];
+    private final List<String> fields = new ArrayList<>(TransferRecords.USER_COLUMNS.length + 1);
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private long line;
+    private Role role;
+    private User user;
+
+    public CsvRecordReader(ReadableByteChannel channel) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        this.reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        role = null;
+        user = null;
+        do {
+            if (!readLine()) {
+                return false;
+            }
+        } while (fields.size() == 1 && fields.get(0) == null);
+        String table = fields.get(0);
+        String[] values = fields.subList(1, fields.size()).toArray(new String[0]);
+        try {
+            if (TransferRecords.ROLE.equals(table)) {
+                check(values, TransferRecords.ROLE_COLUMNS);
+                role = TransferRecords.role(values);
+            } else if (TransferRecords.USER.equals(table)) {
+                check(values, TransferRecords.USER_COLUMNS);
+                user = TransferRecords.user(values);
+            } else {
+                throw new IOException("Unknown table " + table + " on line " + line);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad value on line " + line, e);
+        }
+        return true;
+    }
+
+    @Override
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Leaves the channel open, see {@link RecordReader}.
+     */
+    @Override
+    public void close() {
+    }
+
+    private void check(String[] values, String[] columns) throws IOException {
+        if (values.length != columns.length) {
+            throw new IOException("Expected " + columns.length + " fields on line " + line + " but got "
+                + values.length);
+        }
+    }
+
+    private boolean readLine() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        line++;
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quote on line " + line);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',' || c == '\n' || c < 0) {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+                if (c != ',') {
+                    return true;
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(chars, 0, chars.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return chars[position++];
+    }
+
+}
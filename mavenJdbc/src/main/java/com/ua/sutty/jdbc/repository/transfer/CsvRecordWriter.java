@@ -0,0 +1,71 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the {@link TransferFormat#CSV} format.
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    private final ChannelOutput output;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public CsvRecordWriter(WritableByteChannel channel) {
+        this.output = new ChannelOutput(channel);
+    }
+
+    @Override
+    public void write(Role role) throws IOException {
+        writeLine(TransferRecords.ROLE, TransferRecords.values(role));
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        writeLine(TransferRecords.USER, TransferRecords.values(user));
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.flush();
+    }
+
+    private void writeLine(String table, String[] values) throws IOException {
+        line.setLength(0);
+        line.append(table);
+        for (String value : values) {
+            line.append(',');
+            if (value != null) {
+                appendField(value);
+            }
+        }
+        line.append('\n');
+        output.put(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendField(String value) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads DbUnit flat XML datasets such as {@code dataset.xml} with StAX, one row element at a time, instead of
+ * building the whole dataset in memory as DbUnit does. Rows of tables other than {@code role} and {@code user} are
+ * skipped; a missing attribute is a {@code null} column.
+ */
+public class FlatXmlRecordReader implements RecordReader {
+
+    private final XMLStreamReader reader;
+    private final String[] roleValues = new String[TransferRecords.ROLE_COLUMNS.length];
+    private final String[] userValues = new String[TransferRecords.USER_COLUMNS.length];
+    private Role role;
+    private User user;
+
+    public FlatXmlRecordReader(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            reader = factory.createXMLStreamReader(new BufferedInputStream(Channels.newInputStream(channel),
+                ChannelOutput.BUFFER_SIZE));
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        role = null;
+        user = null;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || reader.getAttributeCount() == 0) {
+                    continue;
+                }
+                String table = reader.getLocalName();
+                if (TransferRecords.ROLE.equalsIgnoreCase(table)) {
+                    role = TransferRecords.role(attributes(TransferRecords.ROLE_COLUMNS, roleValues));
+                    return true;
+                }
+                if (TransferRecords.USER.equalsIgnoreCase(table)) {
+                    user = TransferRecords.user(attributes(TransferRecords.USER_COLUMNS, userValues));
+                    return true;
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad value in row " + reader.getLocalName() + " at line "
+                + reader.getLocation().getLineNumber(), e);
+        }
+    }
+
+    @Override
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Leaves the channel open, see {@link RecordReader}.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private String[] attributes(String[] columns, String[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = reader.getAttributeValue(null, columns[i]);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link TransferFormat#FLAT_XML}, which DbUnit's {@code FlatXmlDataSetBuilder} reads back with column
+ * sensing enabled, since {@code null} columns are left out. Line breaks and tabs in values are written as character
+ * references so XML attribute normalization does not turn them into spaces.
+ */
+public class FlatXmlRecordWriter implements RecordWriter {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<dataset>\n";
+
+    private static final String FOOTER = "</dataset>\n";
+
+    private final ChannelOutput output;
+    private final StringBuilder row = new StringBuilder(256);
+
+    public FlatXmlRecordWriter(WritableByteChannel channel) throws IOException {
+        this.output = new ChannelOutput(channel);
+        output.put(HEADER.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(Role role) throws IOException {
+        writeRow(TransferRecords.ROLE, TransferRecords.ROLE_COLUMNS, TransferRecords.values(role));
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        writeRow(TransferRecords.USER, TransferRecords.USER_COLUMNS, TransferRecords.values(user));
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.put(FOOTER.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private void writeRow(String table, String[] columns, String[] values) throws IOException {
+        row.setLength(0);
+        row.append("    <").append(table);
+        for (int i = 0; i < columns.length; i++) {
+            if (values[i] != null) {
+                row.append(' ').append(columns[i]).append("=\"");
+                appendEscaped(values[i]);
+                row.append('"');
+            }
+        }
+        row.append("/>\n");
+        output.put(row.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    row.append("&amp;");
+                    break;
+                case '<':
+                    row.append("&lt;");
+                    break;
+                case '>':
+                    row.append("&gt;");
+                    break;
+                case '"':
+                    row.append("&quot;");
+                    break;
+                case '\n':
+                    row.append("&#10;");
+                    break;
+                case '\r':
+                    row.append("&#13;");
+                    break;
+                case '\t':
+                    row.append("&#9;");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.AbstractJdbcDao;
+import com.ua.sutty.jdbc.repository.RoleRowMapper;
+import com.ua.sutty.jdbc.repository.UserRowMapper;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Streams the {@code role} and {@code user} tables to and from a channel in one of the {@link TransferFormat}s,
+ * keeping ids and versions. Neither direction holds more than one batch of rows in memory.
+ *
+ * <p>Import is meant for empty tables, such as a freshly migrated staging database. Rows are inserted in batches of
+ * {@link #getBatchSize()} and committed every {@link #getCommitInterval()} records, so a failure rolls back only
+ * the records since the last commit. Afterwards the id columns are restarted above the imported ids, which
+ * commits, so import must not run inside a unit of work.
+ */
+public class JdbcDataTransfer extends AbstractJdbcDao {
+
+    private static final String GET_ROLES = "SELECT * FROM role ORDER BY id";
+
+    private static final String GET_USERS = "SELECT * FROM user ORDER BY id";
+
+    private static final String INSERT_ROLE = String.format("INSERT INTO role(%s, %s, %s) VALUES (?, ?, ?)",
+        Role.ID, Role.NAME, Role.VERSION);
+
+    private static final String INSERT_USER = String.format("INSERT INTO user(%s, %s, %s, %s, %s, %s, %s, %s, %s)" +
+        " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", User.ID, User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME,
+        User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID, User.VERSION);
+
+    private static final String NEXT_ID = "SELECT COALESCE(MAX(id), 0) + 1 FROM %s";
+
+    private static final String RESTART_ID = "ALTER TABLE %s ALTER COLUMN id RESTART WITH %d";
+
+    public JdbcDataTransfer() {
+    }
+
+    public JdbcDataTransfer(BasicDataSource basicDataSource, String dataSource) {
+        super(basicDataSource, dataSource);
+    }
+
+    /**
+     * Writes all roles, then all users, each ordered by id.
+     *
+     * @return the number of records written
+     */
+    public long exportTo(WritableByteChannel channel, TransferFormat format) throws IOException {
+        if (channel == null || format == null) {
+            throw new NullPointerException();
+        }
+        long count = 0;
+        try (Connection connection = super.createReadConnection("DataTransfer.export");
+             Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            connection.setAutoCommit(false);
+            boolean lazy = super.startStreaming(connection);
+            stmt.setFetchSize(getFetchSize());
+            try (RecordWriter writer = format.newWriter(channel)) {
+                try (ResultSet rs = stmt.executeQuery(GET_ROLES)) {
+                    RoleRowMapper rowMapper = new RoleRowMapper(rs);
+                    while (rs.next()) {
+                        writer.write(rowMapper.mapRow(rs));
+                        count++;
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery(GET_USERS)) {
+                    UserRowMapper rowMapper = new UserRowMapper(rs);
+                    while (rs.next()) {
+                        writer.write(rowMapper.mapRow(rs));
+                        count++;
+                    }
+                }
+            } finally {
+                if (lazy) {
+                    super.stopStreaming(connection);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Inserts every record read from {@code channel}.
+     *
+     * @return the number of records imported
+     */
+    public long importFrom(ReadableByteChannel channel, TransferFormat format) throws IOException {
+        if (channel == null || format == null) {
+            throw new NullPointerException();
+        }
+        long count = 0;
+        try (Connection connection = super.createConnection("DataTransfer.import");
+             PreparedStatement insertRole = connection.prepareStatement(INSERT_ROLE);
+             PreparedStatement insertUser = connection.prepareStatement(INSERT_USER);
+             RecordReader reader = format.newReader(channel)) {
+            try {
+                int batchSize = getBatchSize();
+                int commitInterval = getCommitInterval();
+                int batchedRoles = 0;
+                int batchedUsers = 0;
+                int uncommitted = 0;
+                while (reader.next()) {
+                    Role role = reader.getRole();
+                    if (role != null) {
+                        bindRole(insertRole, role);
+                        insertRole.addBatch();
+                        if (++batchedRoles == batchSize) {
+                            insertRole.executeBatch();
+                            batchedRoles = 0;
+                        }
+                    } else {
+                        if (batchedRoles > 0) {
+                            insertRole.executeBatch();
+                            batchedRoles = 0;
+                        }
+                        bindUser(insertUser, reader.getUser());
+                        insertUser.addBatch();
+                        if (++batchedUsers == batchSize) {
+                            insertUser.executeBatch();
+                            batchedUsers = 0;
+                        }
+                    }
+                    count++;
+                    if (++uncommitted == commitInterval) {
+                        flush(insertRole, batchedRoles, insertUser, batchedUsers);
+                        batchedRoles = 0;
+                        batchedUsers = 0;
+                        connection.commit();
+                        uncommitted = 0;
+                    }
+                }
+                flush(insertRole, batchedRoles, insertUser, batchedUsers);
+                connection.commit();
+                if (count > 0) {
+                    restartId(connection, "role");
+                    restartId(connection, "user");
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                rollBackTransactional(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return count;
+    }
+
+    private static void flush(PreparedStatement insertRole, int batchedRoles, PreparedStatement insertUser,
+                              int batchedUsers) throws SQLException {
+        if (batchedRoles > 0) {
+            insertRole.executeBatch();
+        }
+        if (batchedUsers > 0) {
+            insertUser.executeBatch();
+        }
+    }
+
+    private static void restartId(Connection connection, String table) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            long next;
+            try (ResultSet rs = stmt.executeQuery(String.format(NEXT_ID, table))) {
+                rs.next();
+                next = rs.getLong(1);
+            }
+            stmt.execute(String.format(RESTART_ID, table, next));
+        }
+        connection.commit();
+    }
+
+    private static void bindRole(PreparedStatement pst, Role role) throws SQLException {
+        pst.setObject(1, role.getId(), Types.BIGINT);
+        pst.setString(2, role.getName());
+        pst.setLong(3, role.getVersion() == null ? 0L : role.getVersion());
+    }
+
+    private static void bindUser(PreparedStatement pst, User user) throws SQLException {
+        pst.setObject(1, user.getId(), Types.BIGINT);
+        pst.setString(2, user.getLogin());
+        pst.setString(3, user.getPassword());
+        pst.setString(4, user.getEmail());
+        pst.setString(5, user.getFirstName());
+        pst.setString(6, user.getLastName());
+        pst.setDate(7, user.getBirthday());
+        pst.setObject(8, user.getRoleId(), Types.BIGINT);
+        pst.setLong(9, user.getVersion() == null ? 0L : user.getVersion());
+    }
+
+    private void rollBackTransactional(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e1) {
+            e1.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Decodes roles and users from a channel, one record at a time, so arbitrarily large exports are read in constant
+ * memory. {@link #close()} leaves the channel open for its owner to close.
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * Advances to the next record.
+     *
+     * @return {@code false} at the end of the data
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Returns the current record if it is a role, otherwise {@code null}.
+     */
+    Role getRole();
+
+    /**
+     * Returns the current record if it is a user, otherwise {@code null}.
+     */
+    User getUser();
+
+}
@@ -0,0 +1,19 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Encodes roles and users onto a channel. Records are buffered; {@link #close()} writes the end of the data and
+ * flushes it, but leaves the channel open for its owner to close.
+ */
+public interface RecordWriter extends Closeable {
+
+    void write(Role role) throws IOException;
+
+    void write(User user) throws IOException;
+
+}
@@ -0,0 +1,62 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodings understood by {@link JdbcDataTransfer}.
+ */
+public enum TransferFormat {
+
+    /**
+     * One line per record, RFC 4180 quoting, led by the table name: {@code role,1,USER,0}. An empty field is
+     * {@code null}, {@code ""} is the empty string.
+     */
+    CSV {
+        @Override
+        public RecordWriter newWriter(WritableByteChannel channel) {
+            return new CsvRecordWriter(channel);
+        }
+
+        @Override
+        public RecordReader newReader(ReadableByteChannel channel) {
+            return new CsvRecordReader(channel);
+        }
+    },
+
+    /**
+     * Compact length-prefixed binary records, see {@link BinaryRecordWriter}.
+     */
+    BINARY {
+        @Override
+        public RecordWriter newWriter(WritableByteChannel channel) throws IOException {
+            return new BinaryRecordWriter(channel);
+        }
+
+        @Override
+        public RecordReader newReader(ReadableByteChannel channel) throws IOException {
+            return new BinaryRecordReader(channel);
+        }
+    },
+
+    /**
+     * DbUnit flat XML such as {@code dataset.xml}: one element per row, one attribute per non-null column.
+     */
+    FLAT_XML {
+        @Override
+        public RecordWriter newWriter(WritableByteChannel channel) throws IOException {
+            return new FlatXmlRecordWriter(channel);
+        }
+
+        @Override
+        public RecordReader newReader(ReadableByteChannel channel) throws IOException {
+            return new FlatXmlRecordReader(channel);
+        }
+    };
+
+    public abstract RecordWriter newWriter(WritableByteChannel channel) throws IOException;
+
+    public abstract RecordReader newReader(ReadableByteChannel channel) throws IOException;
+
+}
@@ -0,0 +1,55 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+
+import java.sql.Date;
+
+/**
+ * Column order and text form of the records shared by the text formats. Nulls stay {@code null}.
+ */
+final class TransferRecords {
+
+    static final String ROLE = "role";
+    static final String USER = "user";
+
+    static final String[] ROLE_COLUMNS = {Role.ID, Role.NAME, Role.VERSION};
+
+    static final String[] USER_COLUMNS = {User.ID, User.LOGIN, User.PASSWORD, User.EMAIL, User.FIRST_NAME,
+        User.LAST_NAME, User.BIRTHDAY, User.ROLE_ID, User.VERSION};
+
+    private TransferRecords() {
+    }
+
+    static String[] values(Role role) {
+        return new String[]{text(role.getId()), role.getName(), text(role.getVersion())};
+    }
+
+    static String[] values(User user) {
+        return new String[]{text(user.getId()), user.getLogin(), user.getPassword(), user.getEmail(),
+            user.getFirstName(), user.getLastName(), user.getBirthday() == null ? null : user.getBirthday().toString(),
+            text(user.getRoleId()), text(user.getVersion())};
+    }
+
+    static Role role(String[] values) {
+        Role role = new Role(toLong(values[0]), values[1]);
+        role.setVersion(toLong(values[2]));
+        return role;
+    }
+
+    static User user(String[] values) {
+        User user = new User(toLong(values[0]), values[1], values[2], values[3], values[4], values[5],
+            values[6] == null ? null : Date.valueOf(values[6].trim()), toLong(values[7]));
+        user.setVersion(toLong(values[8]));
+        return user;
+    }
+
+    private static String text(Long value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static Long toLong(String value) {
+        return value == null ? null : Long.valueOf(value.trim());
+    }
+
+}
@@ -0,0 +1,7 @@
+-- findByLogin / findByEmail and keyset pages sorted by login or email
+CREATE UNIQUE INDEX IF NOT EXISTS user_login_uindex ON user(login);
+CREATE UNIQUE INDEX IF NOT EXISTS user_email_uindex ON user(email);
+-- JdbcRoleDao.remove deletes the users of a role
+CREATE INDEX IF NOT EXISTS user_role_id_index ON user(role_id);
+-- keyset pages sorted by last name
+CREATE INDEX IF NOT EXISTS user_last_name_index ON user(last_name, id);
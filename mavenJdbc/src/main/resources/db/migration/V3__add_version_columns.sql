@@ -0,0 +1,3 @@
+-- optimistic locking: updates match on (id, version) and bump the version
+ALTER TABLE user ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE role ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
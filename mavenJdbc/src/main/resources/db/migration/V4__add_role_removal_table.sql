@@ -0,0 +1,2 @@
+-- JdbcRoleDao.removeInChunks: a role listed here is being removed, resumeRemovals finishes it after a crash
+CREATE TABLE IF NOT EXISTS role_removal(role_id BIGINT PRIMARY KEY, started_on TIMESTAMP);
@@ -0,0 +1,12 @@
+-- findModifiedSince: every insert, update and removal draws the next change number, removals leave a tombstone
+CREATE SEQUENCE IF NOT EXISTS change_seq;
+ALTER TABLE user ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT NEXT VALUE FOR change_seq NOT NULL;
+ALTER TABLE user ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE role ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT NEXT VALUE FOR change_seq NOT NULL;
+ALTER TABLE role ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+CREATE INDEX IF NOT EXISTS user_change_seq_index ON user(change_seq);
+CREATE INDEX IF NOT EXISTS role_change_seq_index ON role(change_seq);
+CREATE TABLE IF NOT EXISTS user_tombstone(id BIGINT PRIMARY KEY, change_seq BIGINT NOT NULL, removed_at TIMESTAMP NOT NULL);
+CREATE TABLE IF NOT EXISTS role_tombstone(id BIGINT PRIMARY KEY, change_seq BIGINT NOT NULL, removed_at TIMESTAMP NOT NULL);
+CREATE INDEX IF NOT EXISTS user_tombstone_change_seq_index ON user_tombstone(change_seq);
+CREATE INDEX IF NOT EXISTS role_tombstone_change_seq_index ON role_tombstone(change_seq);
@@ -0,0 +1,129 @@
+package com.ua.sutty.jdbc.repository;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ListResourceBundle;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataSourceFactoryTest {
+
+    private static final String SQL_DATABASE = "test";
+
+    @AfterClass
+    public static void closeDataSource() {
+        DataSourceFactory.close(SQL_DATABASE);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testGetDataSourceNull() {
+        DataSourceFactory.getDataSource(null);
+    }
+
+    @Test
+    public void testDataSourceIsShared() {
+        assertSame(DataSourceFactory.getDataSource(SQL_DATABASE), DataSourceFactory.getDataSource(SQL_DATABASE));
+        assertSame(DataSourceFactory.getDataSource(SQL_DATABASE), new TestDao().getBasicDataSource());
+    }
+
+    @Test
+    public void testPoolSettingsAreReadFromProperties() {
+        BasicDataSource basicDataSource = DataSourceFactory.getDataSource(SQL_DATABASE);
+        assertEquals(16, basicDataSource.getMaxTotal());
+        assertEquals(2, basicDataSource.getMinIdle());
+        assertEquals(5000, basicDataSource.getMaxWaitMillis());
+        assertEquals("SELECT 1", basicDataSource.getValidationQuery());
+        assertTrue(basicDataSource.isPoolPreparedStatements());
+        assertEquals(100, basicDataSource.getMaxOpenPreparedStatements());
+    }
+
+    @Test
+    public void testCreateConnection() throws Exception {
+        try (Connection connection = new TestDao().createConnection()) {
+            assertFalse(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testReadDataSourceDefaultsToPrimary() {
+        assertSame(DataSourceFactory.getDataSource(SQL_DATABASE), DataSourceFactory.getReadDataSource(SQL_DATABASE));
+        assertSame(DataSourceFactory.getDataSource(SQL_DATABASE), new TestDao().getReadBasicDataSource());
+    }
+
+    @Test
+    public void testReadWithoutReplicaIsReadOnly() throws Exception {
+        try (Connection connection = new TestDao().createReadConnection()) {
+            assertTrue(connection.isReadOnly());
+            assertTrue(connection.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+        }
+    }
+
+    @Test
+    public void testReadDataSourceIsReadOnly() throws Exception {
+        ResourceBundle resourceBundle = new ListResourceBundle() {
+            @Override
+            protected Object[][] getContents() {
+                return new Object[][]{
+                    {DataSourceFactory.DRIVER, "org.h2.Driver"},
+                    {DataSourceFactory.URL, "jdbc:h2:mem:factoryPrimary"},
+                    {DataSourceFactory.USERNAME, "sa"},
+                    {DataSourceFactory.PASSWORD, ""},
+                    {DataSourceFactory.READ_URL, "jdbc:h2:mem:factoryReplica"},
+                    {DataSourceFactory.MAX_TOTAL, "4"}
+                };
+            }
+        };
+        assertNull(DataSourceFactory.createReadDataSource(ResourceBundle.getBundle(SQL_DATABASE)));
+        BasicDataSource readDataSource = DataSourceFactory.createReadDataSource(resourceBundle);
+        try (Connection connection = readDataSource.getConnection()) {
+            assertEquals("jdbc:h2:mem:factoryReplica", readDataSource.getUrl());
+            assertEquals("sa", readDataSource.getUsername());
+            assertEquals(4, readDataSource.getMaxTotal());
+            assertTrue(connection.isReadOnly());
+            assertTrue(connection.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+        } finally {
+            readDataSource.close();
+        }
+    }
+
+    @Test
+    public void testWriteAfterReadOnSamePooledConnection() throws Exception {
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(ResourceBundle.getBundle(SQL_DATABASE).getString(DataSourceFactory.URL));
+        basicDataSource.setMaxTotal(1);
+        TestDao dao = new TestDao();
+        dao.setBasicDataSource(basicDataSource);
+        try {
+            try (Connection connection = dao.createReadConnection()) {
+                assertTrue(connection.isReadOnly());
+                assertTrue(connection.getAutoCommit());
+            }
+            try (Connection connection = dao.createConnection()) {
+                assertFalse(connection.isReadOnly());
+                assertFalse(connection.getAutoCommit());
+            }
+        } finally {
+            basicDataSource.close();
+        }
+    }
+
+    private static class TestDao extends AbstractJdbcDao {
+
+        TestDao() {
+            setDataSource(SQL_DATABASE);
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.ua.sutty.jdbc.repository;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UserRowMapperTest {
+
+    private Connection connection;
+
+    @Before
+    public void openConnection() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "", "");
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testResolveIgnoresCaseAndMissingColumns() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 1 AS name, 2 AS ID")) {
+            assertArrayEquals(new int[]{2, 1, 0}, ColumnIndexes.resolve(resultSet, "id", "NAME", "login"));
+        }
+    }
+
+    @Test
+    public void testMapAllColumnsInAnyOrder() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 3 AS role_id, DATE '1990-01-02' AS birthday," +
+                 " 'last' AS last_name, 'first' AS first_name, 'mail@email.com' AS email, '123' AS password," +
+                 " 'login' AS login, 7 AS id")) {
+            UserRowMapper rowMapper = new UserRowMapper(resultSet);
+            assertTrue(resultSet.next());
+            User user = rowMapper.mapRow(resultSet);
+            assertEquals(Long.valueOf(7), user.getId());
+            assertEquals("login", user.getLogin());
+            assertEquals("123", user.getPassword());
+            assertEquals("mail@email.com", user.getEmail());
+            assertEquals("first", user.getFirstName());
+            assertEquals("last", user.getLastName());
+            assertEquals(Date.valueOf("1990-01-02"), user.getBirthday());
+            assertEquals(Long.valueOf(3), user.getRoleId());
+        }
+    }
+
+    @Test
+    public void testMapProjection() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 7 AS id, 'login' AS login")) {
+            UserRowMapper rowMapper = new UserRowMapper(resultSet);
+            assertTrue(resultSet.next());
+            User user = rowMapper.mapRow(resultSet);
+            assertEquals(Long.valueOf(7), user.getId());
+            assertEquals("login", user.getLogin());
+            assertNull(user.getEmail());
+            assertNull(user.getRoleId());
+            assertFalse(resultSet.next());
+        }
+    }
+
+    @Test
+    public void testMapRole() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 'ADMIN' AS name, 2 AS id")) {
+            RoleRowMapper rowMapper = new RoleRowMapper(resultSet);
+            assertTrue(resultSet.next());
+            Role role = rowMapper.mapRow(resultSet);
+            assertEquals(Long.valueOf(2), role.getId());
+            assertEquals("ADMIN", role.getName());
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BoundedDaoExecutorTest {
+
+    private BoundedDaoExecutor executor;
+
+    @After
+    public void closeExecutor() throws Exception {
+        if (executor != null) {
+            executor.close();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConcurrency() {
+        new BoundedDaoExecutor(0, 1);
+    }
+
+    @Test
+    public void testSizedToPool() {
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setMaxTotal(8);
+        executor = BoundedDaoExecutor.forDataSource(basicDataSource);
+        assertEquals(8, executor.getConcurrency());
+        assertEquals(32, executor.getQueueCapacity());
+    }
+
+    @Test
+    public void testFailureCompletesFuture() throws Exception {
+        executor = new BoundedDaoExecutor(1, 0);
+        try {
+            executor.submit(() -> {
+                throw new IllegalArgumentException();
+            }).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        executor = new BoundedDaoExecutor(2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            accepted.add(executor.execute(() -> await(release)));
+        }
+        CompletableFuture<Void> rejected = executor.execute(() -> {
+        });
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            fail();
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(3, executor.getPendingCount());
+        release.countDown();
+        CompletableFuture.allOf(accepted.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(0, executor.getPendingCount());
+        executor.execute(() -> {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() throws Exception {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            BoundedDaoExecutor bounded = new BoundedDaoExecutor(4, 100, virtualThreads);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maximum = new AtomicInteger();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(bounded.execute(() -> {
+                    maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep();
+                    running.decrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+            bounded.close();
+            assertTrue(maximum.get() <= 4);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.ua.sutty.jdbc.repository.async;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExecutorAsyncUserDaoTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private BoundedDaoExecutor executor;
+    private AsyncUserDao userDao;
+    private AsyncRoleDao roleDao;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        executor = BoundedDaoExecutor.forDataSource(DataSourceFactory.getDataSource(SQL_DATABASE));
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setDataSource(SQL_DATABASE);
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
+        jdbcRoleDao.setDataSource(SQL_DATABASE);
+        userDao = new ExecutorAsyncUserDao(jdbcUserDao, executor);
+        roleDao = new ExecutorAsyncRoleDao(jdbcRoleDao, executor);
+    }
+
+    @After
+    public void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    public void testFindByLogin() {
+        assertEquals("firstUser@gmail.com", userDao.findByLogin("firstUser").join().getEmail());
+    }
+
+    @Test
+    public void testNullArgumentFailsFuture() {
+        try {
+            userDao.findByLogin(null).join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
+
+    @Test
+    public void testConcurrentCreates() throws Exception {
+        Long roleId = roleDao.findByName("USER").join().getId();
+        List<CompletableFuture<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(userDao.create(new User("async" + i, "123", "async" + i + "@email.com", "first", "last",
+                new Date(0), roleId)));
+        }
+        CompletableFuture.allOf(ids.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<Long> id : ids) {
+            assertNotNull(id.join());
+        }
+        assertEquals(23, userDao.findAll().join().size());
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.ua.sutty.jdbc.repository.cache;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CachingUserDaoTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private BasicDataSource basicDataSource;
+    private CachingUserDao userDao;
+    private CachingRoleDao roleDao;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(resourceBundle.getString("jdbc.url"));
+        basicDataSource.setUsername(resourceBundle.getString("jdbc.username"));
+        basicDataSource.setPassword(resourceBundle.getString("jdbc.password"));
+        userDao = new CachingUserDao(new JdbcUserDao(basicDataSource, SQL_DATABASE), 100, 1, TimeUnit.MINUTES);
+        roleDao = new CachingRoleDao(new JdbcRoleDao(basicDataSource, SQL_DATABASE), 100, 1, TimeUnit.MINUTES, userDao);
+    }
+
+    @Test
+    public void testFindByLoginIsCached() {
+        User first = userDao.findByLogin("firstUser");
+        first.setLogin("changedByCaller");
+        User second = userDao.findByLogin("firstUser");
+        assertEquals("firstUser", second.getLogin());
+        assertEquals(1, userDao.getLoginStats().getMissCount());
+        assertEquals(1, userDao.getLoginStats().getHitCount());
+    }
+
+    @Test
+    public void testUpdateInvalidatesOldLogin() {
+        User user = userDao.findByLogin("secondUser");
+        userDao.findByEmail("secondUser@gmail.com");
+        user.setLogin("renamedUser");
+        user.setEmail("renamedUser@gmail.com");
+        userDao.update(user);
+        assertNull(userDao.findByLogin("secondUser").getId());
+        assertNull(userDao.findByEmail("secondUser@gmail.com").getId());
+        assertEquals(user.getId(), userDao.findByLogin("renamedUser").getId());
+    }
+
+    @Test
+    public void testRemoveInvalidatesEveryKeyOfUser() {
+        User user = userDao.findByLogin("secondUser");
+        userDao.findByEmail("secondUser@gmail.com");
+        userDao.findByLogin("firstUser");
+        userDao.remove(new User(user.getId(), null, null, null, null, null, null, null));
+        assertNull(userDao.findByLogin("secondUser").getId());
+        assertNull(userDao.findByEmail("secondUser@gmail.com").getId());
+        userDao.findByLogin("firstUser");
+        assertEquals(1, userDao.getLoginStats().getHitCount());
+    }
+
+    @Test
+    public void testUnitOfWorkCommitInvalidatesOldLoginReadMeanwhile() throws Exception {
+        new TransactionTemplate(basicDataSource).execute(context -> {
+            User user = userDao.findByLogin("secondUser");
+            user.setLogin("renamedUser");
+            userDao.update(user);
+            try {
+                User committed = CompletableFuture.supplyAsync(() -> userDao.findByLogin("secondUser")).get();
+                assertEquals(user.getId(), committed.getId());
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+        assertNull(userDao.findByLogin("secondUser").getId());
+        assertEquals(Long.valueOf(2), userDao.findByLogin("renamedUser").getId());
+    }
+
+    @Test
+    public void testUnitOfWorkRollbackInvalidatesUncommittedRead() {
+        try {
+            new TransactionTemplate(basicDataSource).execute(context -> {
+                User user = userDao.findByLogin("secondUser");
+                user.setLogin("renamedUser");
+                userDao.update(user);
+                assertEquals(user.getId(), userDao.findByLogin("renamedUser").getId());
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertNull(userDao.findByLogin("renamedUser").getId());
+            assertEquals(Long.valueOf(2), userDao.findByLogin("secondUser").getId());
+        }
+    }
+
+    @Test
+    public void testPatchAndSetRoleInvalidateUser() {
+        assertNull(userDao.findByLogin("patchedUser").getId());
+        assertEquals(Long.valueOf(2), userDao.findByLogin("secondUser").getRoleId());
+        userDao.setRole(2L, 3L);
+        assertEquals(Long.valueOf(3), userDao.findByLogin("secondUser").getRoleId());
+        UserPatch patch = new UserPatch(2L);
+        patch.setLogin("patchedUser");
+        userDao.patch(patch);
+        assertNull(userDao.findByLogin("secondUser").getId());
+        assertEquals(Long.valueOf(2), userDao.findByLogin("patchedUser").getId());
+    }
+
+    @Test
+    public void testCreateInvalidatesMissingLogin() {
+        assertNull(userDao.findByLogin("newUser").getId());
+        userDao.create(new User("newUser", "123", "newUser@gmail.com", "new", "user",
+            new Date(System.currentTimeMillis()), 1L));
+        assertEquals("newUser", userDao.findByLogin("newUser").getLogin());
+    }
+
+    @Test
+    public void testRemoveRoleInvalidatesItsUsers() {
+        assertEquals(Long.valueOf(3), userDao.findByLogin("thirdUser").getId());
+        Role role = roleDao.findByName("MANAGER");
+        roleDao.remove(role);
+        assertNull(userDao.findByLogin("thirdUser").getId());
+        assertNull(roleDao.findByName("MANAGER").getId());
+        assertEquals(2, roleDao.getStats().getMissCount());
+    }
+
+    @Test
+    public void testFindByLoginsUsesCache() {
+        userDao.findByLogin("firstUser");
+        Map<String, User> users = userDao.findByLogins(Arrays.asList("firstUser", "secondUser", "missingUser"));
+        assertEquals(2, users.size());
+        assertEquals(1, userDao.getLoginStats().getHitCount());
+        users.get("secondUser").setLogin("changedByCaller");
+        assertEquals("secondUser", userDao.findByLogin("secondUser").getLogin());
+        assertNull(userDao.findByLogin("missingUser").getId());
+        assertEquals(3, userDao.getLoginStats().getHitCount());
+    }
+
+}
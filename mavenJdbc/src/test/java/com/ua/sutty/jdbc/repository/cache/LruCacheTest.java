@@ -0,0 +1,80 @@
+package com.ua.sutty.jdbc.repository.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LruCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSize() {
+        new LruCache<String, String>(0, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2, 1, TimeUnit.MINUTES);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        CacheStats stats = cache.stats();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    public void testExpiresAfterTimeToLive() {
+        AtomicLong now = new AtomicLong();
+        LruCache<String, String> cache = new LruCache<>(10, 5, TimeUnit.NANOSECONDS, now::get);
+        cache.put("a", "1");
+        now.set(4);
+        assertEquals("1", cache.get("a"));
+        now.set(5);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testInvalidateIf() {
+        LruCache<String, String> cache = new LruCache<>(10, 1, TimeUnit.MINUTES);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidateIf("1"::equals);
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+    }
+
+    @Test
+    public void testInvalidateIndexed() {
+        LruCache<String, String> cache = new LruCache<>(2, 1, TimeUnit.MINUTES, value -> value.substring(0, 1));
+        cache.put("a", "1a");
+        cache.put("b", "1b");
+        cache.put("b", "2b");
+        cache.invalidateIndexed("1");
+        assertNull(cache.get("a"));
+        assertEquals("2b", cache.get("b"));
+        cache.put("c", "2c");
+        cache.put("d", "3d");
+        cache.invalidateIndexed("2");
+        assertNull(cache.get("c"));
+        assertEquals("3d", cache.get("d"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInvalidateIndexedWithoutIndex() {
+        new LruCache<String, String>(2, 1, TimeUnit.MINUTES).invalidateIndexed("a");
+    }
+
+}
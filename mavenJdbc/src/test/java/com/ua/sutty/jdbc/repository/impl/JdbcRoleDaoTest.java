@@ -1,46 +1,55 @@
 package com.ua.sutty.jdbc.repository.impl;
 
 import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.dbunit.IDatabaseTester;
 import org.dbunit.JdbcDatabaseTester;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
 import org.dbunit.operation.DatabaseOperation;
-import org.h2.tools.RunScript;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
-import java.nio.charset.Charset;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 public class JdbcRoleDaoTest {
 
     private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
-    private static final String SQL_SCHEMA = "src/main/resources/schema.sql";
     private static final String SQL_DATABASE = "test";
     private static IDatabaseTester databaseTester = null;
 
     @BeforeClass
     public static void createSchema() {
-        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
-        String url = resourceBundle.getString("jdbc.url");
-        String user = resourceBundle.getString("jdbc.username");
-        String password = resourceBundle.getString("jdbc.password");
-
-//        String schema = resourceBundle.getString("schema.sql");
-        try {
-            RunScript.execute(url, user, password, SQL_SCHEMA,
-                Charset.forName("UTF-8"), false);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
     }
 
     @Before
@@ -108,14 +117,28 @@ public class JdbcRoleDaoTest {
     public void testCreate() throws Exception {
         JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
         jdbcRoleDao.setBasicDataSource(dataSource());
-        Role someRole = new Role(4L, "createRole");
-        jdbcRoleDao.create(someRole);
+        Role someRole = new Role("createRole");
+        Long id = jdbcRoleDao.create(someRole);
+        assertNotNull(id);
+        assertEquals(id, someRole.getId());
+        assertEquals(id, jdbcRoleDao.findByName("createRole").getId());
         assertEquals(4, databaseTester.getConnection().createDataSet()
             .getTable("role").getRowCount());
         assertEquals(someRole.getName(), databaseTester.getConnection()
             .createDataSet().getTable("role").getValue(3, "Name"));
     }
 
+    @Test
+    public void testCreateExisting() throws Exception {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
+        jdbcRoleDao.setBasicDataSource(dataSource());
+        Role role = new Role("ADMIN");
+        assertNull(jdbcRoleDao.create(role));
+        assertNull(role.getId());
+        assertEquals(3, databaseTester.getConnection().createDataSet()
+            .getTable("role").getRowCount());
+    }
+
     @Test
     public void testUpdate() throws Exception {
         JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
@@ -139,6 +162,68 @@ public class JdbcRoleDaoTest {
             .createDataSet().getTable("role").getRowCount());
     }
 
+    @Test
+    public void testRemoveInChunks() throws Exception {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(new User("chunked" + i, "123", "chunked" + i + "@gmail.com", "first", "last",
+                Date.valueOf("1990-01-01"), 3L));
+        }
+        jdbcUserDao.createAll(users);
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(dataSource(), SQL_DATABASE);
+        jdbcRoleDao.setCommitInterval(2);
+        List<String> progress = new ArrayList<>();
+        long removed = jdbcRoleDao.removeInChunks(new Role(3L, "MANAGER"),
+            (roleId, usersRemoved, done) -> progress.add(roleId + ":" + usersRemoved + ":" + done));
+
+        assertEquals(6, removed);
+        assertEquals(Arrays.asList("3:2:false", "3:4:false", "3:6:false", "3:6:true"), progress);
+        assertNull(jdbcRoleDao.findByName("MANAGER").getId());
+        assertEquals(2, databaseTester.getConnection().createDataSet().getTable("user").getRowCount());
+        assertEquals(0, databaseTester.getConnection().createDataSet().getTable("role_removal").getRowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveInChunksUnknownRole() {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(dataSource(), SQL_DATABASE);
+        jdbcRoleDao.removeInChunks(new Role(42L, "unknown"), null);
+    }
+
+    @Test
+    public void testResumeRemovals() throws Exception {
+        try (Connection connection = databaseTester.getConnection().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO role_removal(role_id, started_on) VALUES (2, CURRENT_TIMESTAMP)");
+        }
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(dataSource(), SQL_DATABASE);
+        assertEquals(1, jdbcRoleDao.resumeRemovals(null));
+        assertNull(jdbcRoleDao.findByName("ADMIN").getId());
+        assertEquals(2, databaseTester.getConnection().createDataSet().getTable("user").getRowCount());
+        assertEquals(0, jdbcRoleDao.resumeRemovals(null));
+    }
+
+    @Test
+    public void testUpdateVersionConflict() {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(dataSource(), SQL_DATABASE);
+        Role first = jdbcRoleDao.findByName("MANAGER");
+        Role second = jdbcRoleDao.findByName("MANAGER");
+        assertEquals(Long.valueOf(0), first.getVersion());
+        first.setName("LEAD");
+        jdbcRoleDao.update(first);
+        assertEquals(Long.valueOf(1), first.getVersion());
+        second.setName("HEAD");
+        try {
+            jdbcRoleDao.update(second);
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(second.getId(), e.getId());
+            assertEquals(Long.valueOf(0), e.getVersion());
+        }
+        assertEquals(Long.valueOf(1), jdbcRoleDao.findByName("LEAD").getVersion());
+        assertNull(jdbcRoleDao.findByName("HEAD").getId());
+    }
+
     @Test
     public void testFindByName() throws Exception {
         JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
@@ -149,6 +234,89 @@ public class JdbcRoleDaoTest {
         assertNotNull(role);
     }
 
+    @Test
+    public void testFindByNames() {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
+        jdbcRoleDao.setBasicDataSource(dataSource());
+        Map<String, Role> roles = jdbcRoleDao.findByNames(Arrays.asList("ADMIN", "GUEST", "MANAGER"));
+        assertEquals(2, roles.size());
+        assertEquals(Long.valueOf(2), roles.get("ADMIN").getId());
+        assertEquals("MANAGER", roles.get("MANAGER").getName());
+    }
+
+    @Test
+    public void testCreateAll() throws Exception {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
+        jdbcRoleDao.setBasicDataSource(dataSource());
+        List<Role> roles = Arrays.asList(new Role("firstBatchRole"), new Role("secondBatchRole"));
+        List<Long> ids = jdbcRoleDao.createAll(roles);
+        assertEquals(2, ids.size());
+        assertEquals(5, databaseTester.getConnection().createDataSet()
+            .getTable("role").getRowCount());
+        assertEquals(ids.get(1), jdbcRoleDao.findByName("secondBatchRole").getId());
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao();
+        jdbcRoleDao.setBasicDataSource(dataSource());
+        jdbcRoleDao.removeAll(Arrays.asList(new Role(1L, "USER"), new Role(2L, "ADMIN")));
+        assertEquals(1, databaseTester.getConnection().createDataSet()
+            .getTable("role").getRowCount());
+        assertEquals(1, databaseTester.getConnection().createDataSet()
+            .getTable("user").getRowCount());
+    }
+
+    @Test
+    public void testFindModifiedSinceReportsRemovedUsers() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(dataSource(), SQL_DATABASE);
+        long userWatermark = JdbcUserDaoTest.latestWatermark(jdbcUserDao);
+        Changes<Role> roleChanges = jdbcRoleDao.findModifiedSince(0, 1000);
+        while (roleChanges.hasMore()) {
+            roleChanges = jdbcRoleDao.findModifiedSince(roleChanges.getWatermark(), 1000);
+        }
+        long roleWatermark = roleChanges.getWatermark();
+        Role manager = jdbcRoleDao.findByName("MANAGER");
+        manager.setName("LEAD");
+        jdbcRoleDao.update(manager);
+        jdbcRoleDao.remove(new Role(2L, "ADMIN"));
+        jdbcRoleDao.setCommitInterval(1);
+        jdbcRoleDao.removeInChunks(new Role(1L, "USER"), null);
+
+        roleChanges = jdbcRoleDao.findModifiedSince(roleWatermark, 10);
+        assertEquals(1, roleChanges.getModified().size());
+        assertEquals("LEAD", roleChanges.getModified().get(0).getName());
+        assertEquals(Arrays.asList(2L, 1L), roleChanges.getRemovedIds());
+        Changes<User> userChanges = jdbcUserDao.findModifiedSince(userWatermark, 10);
+        assertEquals(0, userChanges.getModified().size());
+        assertEquals(Arrays.asList(2L, 1L), userChanges.getRemovedIds());
+    }
+
+    /**
+     * Commits an update of the role's only user after the removal has read the users of the role and before it
+     * deletes them: the user is deleted all the same, and its tombstone follows the update.
+     */
+    @Test
+    public void testRemoveDeletesUserUpdatedConcurrently() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        long watermark = JdbcUserDaoTest.latestWatermark(jdbcUserDao);
+        BasicDataSource basicDataSource = dataSource();
+        basicDataSource.setDriver(new InterleavingDriver("DELETE FROM user", () -> {
+            User user = jdbcUserDao.findByLogin("thirdUser");
+            user.setFirstName("concurrent");
+            jdbcUserDao.update(user);
+        }));
+        JdbcRoleDao jdbcRoleDao = new JdbcRoleDao(basicDataSource, SQL_DATABASE);
+        jdbcRoleDao.remove(new Role(3L, "MANAGER"));
+
+        assertNull(jdbcUserDao.findByLogin("thirdUser").getId());
+        assertNull(jdbcRoleDao.findByName("MANAGER").getId());
+        Changes<User> changes = jdbcUserDao.findModifiedSince(watermark, 10);
+        assertEquals(0, changes.getModified().size());
+        assertEquals(Arrays.asList(3L), changes.getRemovedIds());
+    }
+
     private BasicDataSource dataSource() {
         ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
         BasicDataSource basicDataSource = null;
@@ -161,4 +329,87 @@ public class JdbcRoleDaoTest {
         return basicDataSource;
     }
 
+    /**
+     * H2 driver whose connections run {@code interleaved} once, right before the first execution of a statement
+     * prepared with SQL starting with {@code prefix}.
+     */
+    private static final class InterleavingDriver implements Driver {
+
+        private final Driver target = new org.h2.Driver();
+        private final String prefix;
+        private Runnable interleaved;
+
+        InterleavingDriver(String prefix, Runnable interleaved) {
+            this.prefix = prefix;
+            this.interleaved = interleaved;
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            Connection connection = target.connect(url, info);
+            if (connection == null) {
+                return null;
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement") && ((String) args[0]).startsWith(prefix)) {
+                        return interleave((PreparedStatement) result);
+                    }
+                    return result;
+                });
+        }
+
+        private PreparedStatement interleave(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && interleaved != null) {
+                        Runnable runnable = interleaved;
+                        interleaved = null;
+                        runnable.run();
+                    }
+                    return invoke(statement, method, args);
+                });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            return target.acceptsURL(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return target.getPropertyInfo(url, info);
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return target.getMajorVersion();
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return target.getMinorVersion();
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return target.jdbcCompliant();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return target.getParentLogger();
+        }
+
+    }
+
 }
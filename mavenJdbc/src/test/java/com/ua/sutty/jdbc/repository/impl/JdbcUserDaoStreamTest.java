@@ -0,0 +1,91 @@
+package com.ua.sutty.jdbc.repository.impl;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs in its own surefire execution with a 32 MB heap (see pom.xml) against a file based H2 database, so the table
+ * itself does not live on the heap. Each user carries a {@value #NAME_LENGTH}-character password and names, so the
+ * {@value #ROWS} rows take about 40 MB once read: a DAO that collects them, or a driver that computes the whole
+ * result before returning the first row, runs out of memory.
+ */
+public class JdbcUserDaoStreamTest {
+
+    private static final String URL = "jdbc:h2:./target/stream-test/users";
+    private static final int ROWS = 50000;
+    private static final int NAME_LENGTH = 255;
+    private static final int CHUNK = 1000;
+    private static final String INSERT_USERS = "INSERT INTO user(login, password, email, first_name, last_name,"
+        + " birthday, role_id) SELECT 'user' || x, REPEAT('p', ?), 'user' || x || '@email.com', REPEAT('f', ?),"
+        + " REPEAT('l', ?), CURRENT_DATE, 1 FROM SYSTEM_RANGE(?, ?)";
+
+    private static BasicDataSource basicDataSource;
+
+    @BeforeClass
+    public static void createTable() throws Exception {
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(URL);
+        basicDataSource.setUsername("");
+        basicDataSource.setPassword("");
+        try (Connection connection = basicDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        new SchemaMigrator(basicDataSource).migrate();
+        try (Connection connection = basicDataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(INSERT_USERS)) {
+            insert.setInt(1, NAME_LENGTH);
+            insert.setInt(2, NAME_LENGTH);
+            insert.setInt(3, NAME_LENGTH);
+            for (int from = 1; from <= ROWS; from += CHUNK) {
+                insert.setInt(4, from);
+                insert.setInt(5, from + CHUNK - 1);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    @AfterClass
+    public static void dropTable() throws Exception {
+        try (Connection connection = basicDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS DELETE FILES");
+        }
+        basicDataSource.close();
+    }
+
+    @Test
+    public void testStreamAllDoesNotBufferRows() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(basicDataSource, null);
+        AtomicLong loginLength = new AtomicLong();
+        long count;
+        try (Stream<User> users = jdbcUserDao.streamAll()) {
+            count = users.peek(user -> loginLength.addAndGet(user.getLogin().length())).count();
+        }
+        assertEquals(ROWS, count);
+        assertEquals(0, basicDataSource.getNumActive());
+    }
+
+    @Test
+    public void testStreamClosedEarlyReleasesConnection() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(basicDataSource, null);
+        try (Stream<User> users = jdbcUserDao.streamAll()) {
+            assertEquals(10, users.limit(10).count());
+            assertEquals(1, basicDataSource.getNumActive());
+        }
+        assertEquals(0, basicDataSource.getNumActive());
+    }
+
+}
@@ -1,39 +1,61 @@
 package com.ua.sutty.jdbc.repository.impl;
 
+import com.ua.sutty.jdbc.domain.Role;
 import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.domain.UserWithRole;
+import com.ua.sutty.jdbc.repository.Changes;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.Page;
+import com.ua.sutty.jdbc.repository.PageCursor;
+import com.ua.sutty.jdbc.repository.UserDao;
+import com.ua.sutty.jdbc.repository.UserQuery;
+import com.ua.sutty.jdbc.repository.UserSort;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.dbunit.IDatabaseTester;
 import org.dbunit.JdbcDatabaseTester;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
 import org.dbunit.operation.DatabaseOperation;
-import org.h2.tools.RunScript;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
-import java.nio.charset.Charset;
+import java.sql.Connection;
 import java.sql.Date;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class JdbcUserDaoTest {
 
     private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
-    private static final String SQL_SCHEMA = "src/main/resources/schema.sql";
     private static final String SQL_DATABASE = "test";
     private static IDatabaseTester databaseTester = null;
 
     @BeforeClass
-    public static void createSchema() throws Exception {
-        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
-        String url = resourceBundle.getString("jdbc.url");
-        String user = resourceBundle.getString("jdbc.username");
-        String password = resourceBundle.getString("jdbc.password");
-        RunScript.execute(url, user, password, SQL_SCHEMA, Charset.forName("UTF-8"), false);
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
     }
 
     @Before
@@ -109,7 +131,10 @@ public class JdbcUserDaoTest {
         User user = new User(4L, "fourthUser", "123",
             "fourthUser@gmail.com", "fourth", "user",
             new Date(System.currentTimeMillis()), 3L);
-        jdbcUserDao.create(user);
+        Long id = jdbcUserDao.create(user);
+        assertNotNull(id);
+        assertEquals(id, user.getId());
+        assertEquals(id, jdbcUserDao.findByLogin("fourthUser").getId());
         assertEquals(4, databaseTester.getConnection().createDataSet()
             .getTable("user").getRowCount());
         assertEquals(databaseTester.getConnection().createDataSet()
@@ -166,6 +191,582 @@ public class JdbcUserDaoTest {
         assertNotNull("Test find user by email", user);
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testCreateAllNull() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setBasicDataSource(dataSource());
+        jdbcUserDao.createAll(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveAllWhereIdNull() {
+        User user = new User(null, "login", "password", "email", "firstname",
+            "lastname", new Date(System.currentTimeMillis()), 1L);
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setBasicDataSource(dataSource());
+        jdbcUserDao.removeAll(Arrays.asList(user));
+    }
+
+    @Test
+    public void testCreateAll() throws Exception {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setBasicDataSource(dataSource());
+        jdbcUserDao.setBatchSize(2);
+        jdbcUserDao.setCommitInterval(3);
+        List<User> users = generateUsers(5);
+        List<Long> ids = jdbcUserDao.createAll(users);
+        assertEquals(5, ids.size());
+        assertEquals(8, databaseTester.getConnection().createDataSet()
+            .getTable("user").getRowCount());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(ids.get(i), users.get(i).getId());
+            assertEquals(users.get(i).getLogin(), jdbcUserDao.findByLogin(users.get(i).getLogin()).getLogin());
+        }
+    }
+
+    @Test
+    public void testUpdateAll() throws Exception {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setBasicDataSource(dataSource());
+        jdbcUserDao.setBatchSize(2);
+        User second = new User(2L, "secondUpdated", "123", "secondUser@gmail.com",
+            "second", "user", new Date(System.currentTimeMillis()), 2L);
+        User third = new User(3L, "thirdUpdated", "123", "user3@email.com",
+            "third", "user", new Date(System.currentTimeMillis()), 3L);
+        jdbcUserDao.updateAll(Arrays.asList(second, third));
+        assertEquals(second.getLogin(), databaseTester.getConnection().createDataSet()
+            .getTable("user").getValue(1, "login"));
+        assertEquals(third.getLogin(), databaseTester.getConnection().createDataSet()
+            .getTable("user").getValue(2, "login"));
+    }
+
+    @Test
+    public void testUpdateVersionConflict() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        User first = jdbcUserDao.findByLogin("secondUser");
+        User second = jdbcUserDao.findByLogin("secondUser");
+        assertEquals(Long.valueOf(0), first.getVersion());
+        first.setFirstName("firstWriter");
+        jdbcUserDao.update(first);
+        assertEquals(Long.valueOf(1), first.getVersion());
+        second.setFirstName("secondWriter");
+        try {
+            jdbcUserDao.update(second);
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(Long.valueOf(2), e.getId());
+            assertEquals(Long.valueOf(0), e.getVersion());
+        }
+        User stored = jdbcUserDao.findByLogin("secondUser");
+        assertEquals("firstWriter", stored.getFirstName());
+        assertEquals(Long.valueOf(1), stored.getVersion());
+    }
+
+    @Test
+    public void testUnversionedUpdateBumpsVersion() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        User versioned = jdbcUserDao.findByLogin("thirdUser");
+        User blind = new User(versioned);
+        blind.setVersion(null);
+        blind.setLastName("blind");
+        jdbcUserDao.update(blind);
+        assertNull(blind.getVersion());
+        assertEquals(Long.valueOf(1), jdbcUserDao.findByLogin("thirdUser").getVersion());
+        try {
+            jdbcUserDao.update(versioned);
+            fail();
+        } catch (OptimisticLockException expected) {
+            assertEquals("blind", jdbcUserDao.findByLogin("thirdUser").getLastName());
+        }
+    }
+
+    @Test
+    public void testUpdateAllVersionConflictRollsBack() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.setBatchSize(2);
+        User first = jdbcUserDao.findByLogin("firstUser");
+        User second = jdbcUserDao.findByLogin("secondUser");
+        User third = jdbcUserDao.findByLogin("thirdUser");
+        User stale = new User(third);
+        jdbcUserDao.update(third);
+        first.setLastName("batched");
+        second.setLastName("batched");
+        try {
+            jdbcUserDao.updateAll(Arrays.asList(first, second, stale));
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(Long.valueOf(3), e.getId());
+        }
+        assertEquals(Long.valueOf(0), first.getVersion());
+        assertEquals("user", jdbcUserDao.findByLogin("firstUser").getLastName());
+        assertEquals("user", jdbcUserDao.findByLogin("secondUser").getLastName());
+        jdbcUserDao.updateAll(Arrays.asList(first, second));
+        assertEquals(Long.valueOf(1), first.getVersion());
+        assertEquals("batched", jdbcUserDao.findByLogin("secondUser").getLastName());
+    }
+
+    @Test
+    public void testConcurrentVersionedUpdatesLoseNoWrite() throws Exception {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        int threads = 4;
+        int increments = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                int conflicts = 0;
+                for (int n = 0; n < increments; n++) {
+                    while (true) {
+                        User user = jdbcUserDao.findByLogin("firstUser");
+                        user.setPassword(String.valueOf(Integer.parseInt(user.getPassword()) + 1));
+                        try {
+                            jdbcUserDao.update(user);
+                            break;
+                        } catch (OptimisticLockException e) {
+                            conflicts++;
+                        }
+                    }
+                }
+                return conflicts;
+            });
+        }
+        try {
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        User user = jdbcUserDao.findByLogin("firstUser");
+        assertEquals(String.valueOf(123 + threads * increments), user.getPassword());
+        assertEquals(Long.valueOf(threads * increments), user.getVersion());
+    }
+
+    @Test
+    public void testPatchWritesOnlyChangedColumns() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        UserPatch firstName = new UserPatch(2L);
+        firstName.setFirstName("patchedFirst");
+        UserPatch lastName = new UserPatch(2L);
+        lastName.setLastName("patchedLast");
+        lastName.setBirthday(null);
+        jdbcUserDao.patch(firstName);
+        jdbcUserDao.patch(lastName);
+        jdbcUserDao.patch(new UserPatch(2L));
+        User user = jdbcUserDao.findByLogin("secondUser");
+        assertEquals("patchedFirst", user.getFirstName());
+        assertEquals("patchedLast", user.getLastName());
+        assertNull(user.getBirthday());
+        assertEquals("secondUser@gmail.com", user.getEmail());
+        assertEquals(Long.valueOf(2), user.getVersion());
+    }
+
+    @Test
+    public void testPatchFromDiffChecksVersion() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        User original = jdbcUserDao.findByLogin("thirdUser");
+        User changed = new User(original);
+        changed.setEmail("third@patched.com");
+        UserPatch patch = UserPatch.diff(original, changed);
+        assertEquals(UserPatch.EMAIL, patch.getChanged());
+        jdbcUserDao.patch(patch);
+        assertEquals(Long.valueOf(1), patch.getVersion());
+        assertEquals("thirdUser", jdbcUserDao.findByEmail("third@patched.com").getLogin());
+        User stale = new User(original);
+        stale.setLastName("stale");
+        try {
+            jdbcUserDao.patch(UserPatch.diff(original, stale));
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(Long.valueOf(0), e.getVersion());
+        }
+        assertEquals("user", jdbcUserDao.findByLogin("thirdUser").getLastName());
+    }
+
+    @Test
+    public void testSetRole() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.setRole(1L, 3L);
+        User user = jdbcUserDao.findByLogin("firstUser");
+        assertEquals(Long.valueOf(3), user.getRoleId());
+        assertEquals(Long.valueOf(1), user.getVersion());
+        assertEquals("firstUser@gmail.com", user.getEmail());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetRoleOfMissingUser() {
+        new JdbcUserDao(dataSource(), SQL_DATABASE).setRole(404L, 1L);
+    }
+
+    @Test
+    public void testFindByCriteria() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        UserQuery query = new UserQuery();
+        query.setEmailDomain("gmail.com");
+        query.setSort(UserSort.LOGIN);
+        List<User> users = jdbcUserDao.find(query).getItems();
+        assertEquals(2, users.size());
+        assertEquals("firstUser", users.get(0).getLogin());
+        assertEquals("secondUser", users.get(1).getLogin());
+
+        query = new UserQuery();
+        query.setBornFrom(Date.valueOf("1990-01-01"));
+        query.setBornTo(Date.valueOf("1999-04-06"));
+        query.setRoleId(1L);
+        users = jdbcUserDao.find(query).getItems();
+        assertEquals(1, users.size());
+        assertEquals("firstUser", users.get(0).getLogin());
+
+        query = new UserQuery();
+        query.setLoginPrefix("th");
+        assertEquals(Long.valueOf(3), jdbcUserDao.find(query).getItems().get(0).getId());
+    }
+
+    @Test
+    public void testFindByCriteriaPages() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.createAll(generateUsers(5));
+        UserQuery query = new UserQuery();
+        query.setLoginPrefix("batchUser");
+        query.setSort(UserSort.LOGIN);
+        query.setLimit(2);
+        List<String> logins = new ArrayList<>();
+        Page<User> page;
+        do {
+            page = jdbcUserDao.find(query);
+            assertTrue(page.getItems().size() <= 2);
+            for (User user : page.getItems()) {
+                logins.add(user.getLogin());
+            }
+            query.setAfter(page.getNextCursor());
+        } while (page.hasNext());
+        assertEquals(5, logins.size());
+        List<String> sorted = new ArrayList<>(logins);
+        sorted.sort(null);
+        assertEquals(sorted, logins);
+    }
+
+    @Test
+    public void testFindByCriteriaPagesById() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.createAll(generateUsers(5));
+        UserQuery query = new UserQuery();
+        query.setLimit(2);
+        List<User> users = findAllPages(jdbcUserDao, query);
+        assertEquals(8, users.size());
+        for (int i = 1; i < users.size(); i++) {
+            assertTrue(users.get(i - 1).getId() < users.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testFindByCriteriaPagesPastNullSortValues() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        List<User> unnamed = generateUsers(5);
+        for (User user : unnamed) {
+            user.setLastName(null);
+        }
+        jdbcUserDao.createAll(unnamed);
+        UserQuery query = new UserQuery();
+        query.setSort(UserSort.LAST_NAME);
+        query.setLimit(2);
+        List<User> users = findAllPages(jdbcUserDao, query);
+        assertEquals(8, users.size());
+        for (int i = 0; i < 5; i++) {
+            assertNull(users.get(i).getLastName());
+            assertEquals(unnamed.get(i).getId(), users.get(i).getId());
+        }
+        for (int i = 5; i < 8; i++) {
+            assertEquals("user", users.get(i).getLastName());
+        }
+    }
+
+    @Test
+    public void testFindByCriteriaTreatsInputAsData() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        UserQuery query = new UserQuery();
+        query.setLoginPrefix("_");
+        assertTrue(jdbcUserDao.find(query).getItems().isEmpty());
+        query.setLoginPrefix("%");
+        assertTrue(jdbcUserDao.find(query).getItems().isEmpty());
+        query.setLoginPrefix("' OR '1'='1");
+        assertTrue(jdbcUserDao.find(query).getItems().isEmpty());
+        query = new UserQuery();
+        query.setEmailDomain("x'; DROP TABLE user; --");
+        assertTrue(jdbcUserDao.find(query).getItems().isEmpty());
+        assertEquals(3, jdbcUserDao.findAll().size());
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao();
+        jdbcUserDao.setBasicDataSource(dataSource());
+        User first = new User();
+        first.setId(1L);
+        User third = new User();
+        third.setId(3L);
+        jdbcUserDao.removeAll(Arrays.asList(first, third));
+        assertEquals(1, databaseTester.getConnection().createDataSet()
+            .getTable("user").getRowCount());
+    }
+
+    @Test
+    public void testFindModifiedSince() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        long watermark = latestWatermark(jdbcUserDao);
+        User created = new User("tracked", "123", "tracked@gmail.com", "first", "last", Date.valueOf("1990-01-01"), 1L);
+        jdbcUserDao.create(created);
+        User second = jdbcUserDao.findByLogin("secondUser");
+        second.setFirstName("changed");
+        jdbcUserDao.update(second);
+        jdbcUserDao.remove(jdbcUserDao.findByLogin("thirdUser"));
+
+        Changes<User> changes = jdbcUserDao.findModifiedSince(watermark, 10);
+        assertEquals(2, changes.getModified().size());
+        assertEquals("tracked", changes.getModified().get(0).getLogin());
+        assertEquals("changed", changes.getModified().get(1).getFirstName());
+        assertEquals(Arrays.asList(3L), changes.getRemovedIds());
+        assertFalse(changes.hasMore());
+
+        Changes<User> first = jdbcUserDao.findModifiedSince(watermark, 1);
+        assertEquals(created.getId(), first.getModified().get(0).getId());
+        assertTrue(first.hasMore());
+        Changes<User> next = jdbcUserDao.findModifiedSince(first.getWatermark(), 2);
+        assertEquals(Long.valueOf(2), next.getModified().get(0).getId());
+        assertEquals(Arrays.asList(3L), next.getRemovedIds());
+        assertEquals(changes.getWatermark(), next.getWatermark());
+
+        jdbcUserDao.remove(created);
+        changes = jdbcUserDao.findModifiedSince(watermark, 10);
+        assertEquals(1, changes.getModified().size());
+        assertEquals(Arrays.asList(3L, created.getId()), changes.getRemovedIds());
+        Changes<User> none = jdbcUserDao.findModifiedSince(changes.getWatermark(), 10);
+        assertTrue(none.getModified().isEmpty() && none.getRemovedIds().isEmpty());
+        assertEquals(changes.getWatermark(), none.getWatermark());
+    }
+
+    static long latestWatermark(UserDao userDao) {
+        Changes<User> changes = userDao.findModifiedSince(0, 1000);
+        while (changes.hasMore()) {
+            changes = userDao.findModifiedSince(changes.getWatermark(), 1000);
+        }
+        return changes.getWatermark();
+    }
+
+    @Test
+    public void testCreateAndCreateAllInsertEveryRow() {
+        int rows = 2000;
+        BasicDataSource basicDataSource = dataSource();
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+        for (User user : generateUsers(rows)) {
+            jdbcUserDao.create(user);
+        }
+        jdbcUserDao.createAll(generateUsers(rows));
+        assertEquals(2 * rows + 3, jdbcUserDao.findAll().size());
+    }
+
+    @Test
+    public void testSharedInstanceUnderConcurrentLoad() throws Exception {
+        BasicDataSource basicDataSource = dataSource();
+        basicDataSource.setMaxTotal(64);
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+        int operationsPerThread = 50;
+        for (int threads : new int[]{1, 8, 64}) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "thread" + threads + "_" + t + "_";
+                tasks.add(() -> {
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        String login = prefix + i;
+                        jdbcUserDao.create(new User(login, "123", login + "@gmail.com", "stress", "user",
+                            new Date(System.currentTimeMillis()), 1L));
+                        User found = jdbcUserDao.findByLogin(login);
+                        assertEquals(login, found.getLogin());
+                        assertEquals(login + "@gmail.com", found.getEmail());
+                    }
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+        assertEquals(3 + (1 + 8 + 64) * operationsPerThread, jdbcUserDao.findAll().size());
+        basicDataSource.close();
+    }
+
+    @Test
+    public void testFindPage() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        Page<User> first = jdbcUserDao.findPage(null, 2);
+        assertEquals(2, first.getItems().size());
+        assertEquals(Long.valueOf(1), first.getItems().get(0).getId());
+        assertTrue(first.hasNext());
+
+        Page<User> second = jdbcUserDao.findPage(first.getNextCursor().getId(), 2);
+        assertEquals(1, second.getItems().size());
+        assertEquals(Long.valueOf(3), second.getItems().get(0).getId());
+        assertFalse(second.hasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testFindPageSortedByEmail() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.create(new User("nullEmailUser", "123", null, "null", "email",
+            new Date(System.currentTimeMillis()), 1L));
+        List<String> logins = new ArrayList<>();
+        PageCursor cursor = null;
+        do {
+            Page<User> page = jdbcUserDao.findPage(UserSort.EMAIL, cursor, 1);
+            for (User user : page.getItems()) {
+                logins.add(user.getLogin());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(Arrays.asList("nullEmailUser", "firstUser", "secondUser", "thirdUser"), logins);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindPageWithForeignCursor() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.findPage(UserSort.LOGIN, PageCursor.afterId(1L), 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindPageWithoutLimit() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.findPage(null, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testFindByLoginsWithNullElement() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        jdbcUserDao.findByLogins(Arrays.asList("firstUser", null));
+    }
+
+    @Test
+    public void testFindByLogins() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        Map<String, User> users = jdbcUserDao.findByLogins(Arrays.asList("firstUser", "missingUser", "thirdUser",
+            "firstUser"));
+        assertEquals(2, users.size());
+        assertEquals("firstUser@gmail.com", users.get("firstUser").getEmail());
+        assertEquals("user3@email.com", users.get("thirdUser").getEmail());
+        assertTrue(jdbcUserDao.findByLogins(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void testFindByEmails() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        Map<String, User> users = jdbcUserDao.findByEmails(Arrays.asList("secondUser@gmail.com", "user3@email.com"));
+        assertEquals("secondUser", users.get("secondUser@gmail.com").getLogin());
+        assertEquals("thirdUser", users.get("user3@email.com").getLogin());
+    }
+
+    @Test
+    public void testFindByIdsInChunks() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        List<User> created = generateUsers(300);
+        List<Long> ids = new ArrayList<>(jdbcUserDao.createAll(created));
+        ids.add(-1L);
+        Map<Long, User> users = jdbcUserDao.findByIds(ids);
+        assertEquals(300, users.size());
+        for (User user : created) {
+            assertEquals(user.getLogin(), users.get(user.getId()).getLogin());
+        }
+    }
+
+    @Test
+    public void testFindAllWithRoles() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        List<User> created = generateUsers(2);
+        jdbcUserDao.createAll(created);
+        Map<String, UserWithRole> users = new HashMap<>();
+        for (UserWithRole user : jdbcUserDao.findAllWithRoles()) {
+            users.put(user.getUser().getLogin(), user);
+        }
+        assertEquals(5, users.size());
+        assertEquals("ADMIN", users.get("secondUser").getRole().getName());
+        assertEquals(Long.valueOf(3), users.get("thirdUser").getRole().getId());
+        Role firstRole = users.get("firstUser").getRole();
+        assertEquals("USER", firstRole.getName());
+        assertSame(firstRole, users.get(created.get(0).getLogin()).getRole());
+        assertSame(firstRole, users.get(created.get(1).getLogin()).getRole());
+    }
+
+    @Test
+    public void testFindByLoginWithRole() {
+        JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+        UserWithRole user = jdbcUserDao.findByLoginWithRole("secondUser");
+        assertEquals("secondUser@gmail.com", user.getUser().getEmail());
+        assertEquals("ADMIN", user.getRole().getName());
+        UserWithRole missing = jdbcUserDao.findByLoginWithRole("missingUser");
+        assertNull(missing.getUser().getId());
+        assertNull(missing.getRole());
+    }
+
+    @Test
+    public void testFindersReadFromReplica() throws Exception {
+        BasicDataSource replica = new BasicDataSource();
+        replica.setUrl("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(replica).migrate();
+        try (Connection connection = replica.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM user");
+            stmt.execute("MERGE INTO role(id, name) KEY(id) VALUES (1, 'USER')");
+            stmt.execute("INSERT INTO user(id, login, password, email, first_name, last_name, birthday, role_id)"
+                + " VALUES (7, 'replicaUser', '123', 'replica@gmail.com', 'replica', 'user', '1990-01-01', 1)");
+        }
+        try {
+            JdbcUserDao jdbcUserDao = new JdbcUserDao(dataSource(), SQL_DATABASE);
+            jdbcUserDao.setReadBasicDataSource(replica);
+            assertEquals(Long.valueOf(7), jdbcUserDao.findByLogin("replicaUser").getId());
+            assertNull(jdbcUserDao.findByLogin("firstUser").getId());
+            assertEquals(1, jdbcUserDao.findAll().size());
+
+            User user = generateUsers(1).get(0);
+            jdbcUserDao.create(user);
+            assertNull(jdbcUserDao.findByLogin(user.getLogin()).getId());
+            assertEquals(user.getId(), new JdbcUserDao(dataSource(), SQL_DATABASE).findByLogin(user.getLogin()).getId());
+
+            BasicDataSource primary = jdbcUserDao.getBasicDataSource();
+            User inUnitOfWork = new TransactionTemplate(primary).execute(context -> jdbcUserDao.findByLogin("firstUser"));
+            assertEquals(Long.valueOf(1), inUnitOfWork.getId());
+        } finally {
+            try (Connection connection = replica.getConnection(); Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+            replica.close();
+        }
+    }
+
+    private static List<User> findAllPages(JdbcUserDao jdbcUserDao, UserQuery query) {
+        List<User> users = new ArrayList<>();
+        Page<User> page;
+        do {
+            page = jdbcUserDao.find(query);
+            assertTrue(page.getItems().size() <= query.getLimit());
+            users.addAll(page.getItems());
+            query.setAfter(page.getNextCursor());
+        } while (page.hasNext());
+        return users;
+    }
+
+    private List<User> generateUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String login = "batchUser" + System.nanoTime() + i;
+            users.add(new User(login, "123", login + "@gmail.com", "batch", "user",
+                new Date(System.currentTimeMillis()), 1L));
+        }
+        return users;
+    }
+
     private BasicDataSource dataSource() {
         ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
         BasicDataSource basicDataSource = new BasicDataSource();
@@ -0,0 +1,142 @@
+package com.ua.sutty.jdbc.repository.impl;
+
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.WarmUpReport;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JdbcUserDaoWarmUpTest {
+
+    private static final String SQL_DATABASE = "test";
+
+    private BasicDataSource basicDataSource;
+    private CountingDriver driver;
+    private JdbcUserDao jdbcUserDao;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    /**
+     * A new pool configured like the shared one, with statement pooling, whose driver counts the statements that
+     * reach the database; those served from a statement pool do not.
+     */
+    @Before
+    public void createDataSource() {
+        basicDataSource = DataSourceFactory.createDataSource(ResourceBundle.getBundle(SQL_DATABASE));
+        driver = new CountingDriver();
+        basicDataSource.setDriver(driver);
+        jdbcUserDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+    }
+
+    @After
+    public void closeDataSource() throws Exception {
+        basicDataSource.close();
+    }
+
+    @Test
+    public void testWarmUpOpensAndValidatesMinIdleConnections() {
+        WarmUpReport report = jdbcUserDao.warmUp(true);
+
+        assertEquals(basicDataSource.getMinIdle(), report.getConnections());
+        assertEquals(0, report.getInvalidConnections());
+        assertEquals(basicDataSource.getMinIdle(), basicDataSource.getNumIdle());
+        assertEquals(0, basicDataSource.getNumActive());
+        int statements = jdbcUserDao.getWriteStatements().size() + jdbcUserDao.getInsertStatements().size()
+            + jdbcUserDao.getReadStatements().size();
+        assertEquals(statements * report.getConnections(), report.getStatements());
+        assertEquals(jdbcUserDao.getIndexScans().size(), report.getIndexScans());
+    }
+
+    @Test
+    public void testWarmedStatementsAreServedFromStatementPools() {
+        WarmUpReport report = jdbcUserDao.warmUp(false);
+        int prepared = driver.prepared.get();
+        assertTrue(prepared >= report.getStatements());
+
+        assertEquals(report.getStatements(), jdbcUserDao.warmUp(false).getStatements());
+        assertEquals("every connection already holds every statement", prepared, driver.prepared.get());
+
+        assertNotNull(jdbcUserDao.findByLogin("firstUser"));
+        assertEquals(prepared, driver.prepared.get());
+        assertEquals(basicDataSource.getMinIdle(), basicDataSource.getNumIdle());
+    }
+
+    private static final class CountingDriver implements Driver {
+
+        private final Driver target = new org.h2.Driver();
+        private final AtomicInteger prepared = new AtomicInteger();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            Connection connection = target.connect(url, info);
+            if (connection == null) {
+                return null;
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        prepared.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            return target.acceptsURL(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return target.getPropertyInfo(url, info);
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return target.getMajorVersion();
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return target.getMinorVersion();
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return target.jdbcCompliant();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return target.getParentLogger();
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.ua.sutty.jdbc.repository.metrics;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DaoMetricsTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private DaoMetrics metrics;
+    private JdbcUserDao userDao;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        metrics = new DaoMetrics(1, TimeUnit.MINUTES);
+        userDao = new JdbcUserDao();
+        userDao.setDataSource(SQL_DATABASE);
+        userDao.setInstrumentation(metrics);
+    }
+
+    @After
+    public void unregister() {
+        metrics.unregisterMBean();
+    }
+
+    @Test
+    public void testOperationsAreRecorded() {
+        userDao.findByLogin("firstUser");
+        userDao.findByLogin("missingUser");
+        userDao.findAll();
+        OperationStats findByLogin = metrics.getOperation("UserDao.findByLogin");
+        assertEquals(2, findByLogin.getCalls());
+        assertEquals(0, findByLogin.getFailures());
+        assertEquals(1, findByLogin.getRows());
+        assertEquals(2, findByLogin.getExecute().getCount());
+        assertEquals(2, findByLogin.getCommit().getCount());
+        assertTrue(findByLogin.getTotal().getMaxMicros() >= findByLogin.getExecute().getMaxMicros());
+        assertEquals(3, metrics.getOperation("UserDao.findAll").getRows());
+        assertNull(metrics.getOperation("UserDao.findByEmail"));
+        assertEquals(2, metrics.getOperations().size());
+    }
+
+    @Test
+    public void testFailureIsCounted() {
+        User duplicate = new User("firstUser", "123", "other@gmail.com", "first", "user", null, 1L);
+        userDao.create(duplicate);
+        assertEquals(1, metrics.getOperation("UserDao.create").getFailures());
+    }
+
+    @Test
+    public void testSlowQueryIsLogged() {
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(DaoMetrics.class.getName());
+        logger.addHandler(handler);
+        try {
+            metrics.setSlowQueryThresholdMillis(0);
+            userDao.findByEmail("user3@email.com");
+        } finally {
+            logger.removeHandler(handler);
+        }
+        assertEquals(1, metrics.getSlowQueryCount());
+        assertEquals(1, records.size());
+        String message = records.get(0).getMessage();
+        assertTrue(message, message.contains("UserDao.findByEmail"));
+        assertTrue(message, message.contains("SELECT * FROM user WHERE email = ?"));
+    }
+
+    @Test
+    public void testUninstrumentedConnectionIsNotWrapped() throws Exception {
+        userDao.setInstrumentation(null);
+        userDao.findByLogin("firstUser");
+        assertTrue(metrics.getOperations().isEmpty());
+        assertSame(null, userDao.getInstrumentation());
+    }
+
+    @Test
+    public void testExposedThroughJmx() throws Exception {
+        userDao.findByLogin("firstUser");
+        ObjectName objectName = metrics.registerMBean("DaoMetricsTest");
+        CompositeData[] operations = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(objectName, "Operations");
+        assertEquals(1, operations.length);
+        assertEquals("UserDao.findByLogin", operations[0].get("operation"));
+        assertEquals(1L, ((CompositeData) operations[0].get("total")).get("count"));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        PhaseStats stats = histogram.snapshot();
+        assertEquals(100, stats.getCount());
+        assertEquals(16, stats.getP50Micros());
+        assertEquals(16, stats.getP99Micros());
+        assertEquals(5000, stats.getMaxMicros());
+    }
+
+}
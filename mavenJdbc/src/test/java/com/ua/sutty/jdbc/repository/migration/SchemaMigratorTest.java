@@ -0,0 +1,72 @@
+package com.ua.sutty.jdbc.repository.migration;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class SchemaMigratorTest {
+
+    private BasicDataSource basicDataSource;
+
+    @Before
+    public void createDataSource() {
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl("jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1");
+        basicDataSource.setUsername("");
+        basicDataSource.setPassword("");
+    }
+
+    @After
+    public void dropDatabase() throws Exception {
+        try (Connection connection = basicDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        basicDataSource.close();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullDataSource() {
+        new SchemaMigrator(null);
+    }
+
+    @Test
+    public void testMigrateStepByStep() throws Exception {
+        SchemaMigrator schemaMigrator = new SchemaMigrator(basicDataSource);
+        assertEquals(0, schemaMigrator.currentVersion());
+        assertEquals(1, schemaMigrator.migrate(1));
+        assertEquals(0, countIndexes("USER_LOGIN_UINDEX"));
+        int latest = schemaMigrator.migrate();
+        assertEquals(latest, schemaMigrator.currentVersion());
+        assertEquals(1, countIndexes("USER_LOGIN_UINDEX"));
+        assertEquals(1, countIndexes("USER_EMAIL_UINDEX"));
+        assertEquals(1, countIndexes("USER_ROLE_ID_INDEX"));
+        assertEquals(latest, schemaMigrator.migrate());
+    }
+
+    @Test
+    public void testSplitStatements() {
+        assertEquals(Arrays.asList("CREATE TABLE a(id INT)", "CREATE INDEX a_id ON a(id)\nWHERE 1 = 1"),
+            SchemaMigrator.splitStatements(Arrays.asList("-- comment", "CREATE TABLE a(id INT);",
+                "CREATE INDEX a_id ON a(id)", "WHERE 1 = 1;")));
+    }
+
+    private int countIndexes(String name) throws Exception {
+        try (Connection connection = basicDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                 "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = '" + name + "'")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.ua.sutty.jdbc.repository.replica;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.transaction.TransactionTemplate;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class UserReplicaTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private JdbcUserDao userDao;
+    private JdbcRoleDao roleDao;
+    private UserReplica replica;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(resourceBundle.getString("jdbc.url"));
+        basicDataSource.setUsername(resourceBundle.getString("jdbc.username"));
+        basicDataSource.setPassword(resourceBundle.getString("jdbc.password"));
+        userDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+        roleDao = new JdbcRoleDao(basicDataSource, SQL_DATABASE);
+        replica = new UserReplica();
+        userDao.setWriteListener(replica);
+        roleDao.setUserWriteListener(replica);
+    }
+
+    @Test
+    public void testLoadServesSameUsersAsDao() {
+        assertEquals(3, replica.load(userDao));
+        for (String login : new String[]{"firstUser", "secondUser", "thirdUser"}) {
+            User expected = userDao.findByLogin(login);
+            assertSameUser(expected, replica.findByLogin(login));
+            assertSameUser(expected, replica.findByEmail(expected.getEmail()));
+            assertSameUser(expected, replica.findById(expected.getId()));
+        }
+        assertNull(replica.findByLogin("unknown").getId());
+        assertNull(replica.findByEmail("firstuser@gmail.com").getId());
+    }
+
+    @Test
+    public void testDaoWritesAreApplied() {
+        replica.load(userDao);
+        User created = new User("created\u00e9", "123", "created@gmail.com", "cre", "ated", Date.valueOf("1991-02-03"),
+            3L);
+        userDao.create(created);
+        assertSameUser(created, replica.findByLogin("created\u00e9"));
+
+        User second = userDao.findByLogin("secondUser");
+        second.setLogin("renamedUser");
+        userDao.update(second);
+        assertNull(replica.findByLogin("secondUser").getId());
+        assertSameUser(userDao.findByLogin("renamedUser"), replica.findByLogin("renamedUser"));
+
+        UserPatch patch = new UserPatch(created.getId());
+        patch.setEmail("patched@gmail.com");
+        patch.setBirthday(null);
+        userDao.patch(patch);
+        userDao.setRole(created.getId(), 1L);
+        assertNull(replica.findByEmail("created@gmail.com").getId());
+        assertSameUser(userDao.findByLogin("created\u00e9"), replica.findByEmail("patched@gmail.com"));
+
+        userDao.remove(userDao.findByLogin("thirdUser"));
+        assertNull(replica.findByLogin("thirdUser").getId());
+        roleDao.remove(new Role(1L, "USER"));
+        assertNull(replica.findByLogin("firstUser").getId());
+        assertNull(replica.findByLogin("created\u00e9").getId());
+        assertEquals(1, replica.size());
+    }
+
+    @Test
+    public void testAppliesUnitOfWorkOnlyWhenItCommits() {
+        replica.load(userDao);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(userDao.getBasicDataSource());
+        try {
+            transactionTemplate.execute(context -> {
+                userDao.create(new User("uncommitted", "123", "uncommitted@gmail.com", "un", "committed",
+                    Date.valueOf("1991-02-03"), 1L));
+                User first = userDao.findByLogin("firstUser");
+                first.setLogin("renamedUser");
+                userDao.update(first);
+                userDao.remove(userDao.findByLogin("thirdUser"));
+                roleDao.remove(new Role(2L, "ADMIN"));
+                assertNull(replica.findByLogin("uncommitted").getId());
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(3, replica.size());
+            assertNull(replica.findByLogin("uncommitted").getId());
+            assertNull(replica.findByLogin("renamedUser").getId());
+            for (String login : new String[]{"firstUser", "secondUser", "thirdUser"}) {
+                assertSameUser(userDao.findByLogin(login), replica.findByLogin(login));
+            }
+        }
+
+        User committed = new User("committed", "123", "committed@gmail.com", "com", "mitted",
+            Date.valueOf("1991-02-03"), 1L);
+        transactionTemplate.execute(context -> {
+            userDao.create(committed);
+            committed.setFirstName("changed after the write");
+            return null;
+        });
+        User expected = userDao.findByLogin("committed");
+        assertEquals("com", expected.getFirstName());
+        assertSameUser(expected, replica.findByLogin("committed"));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderChurn() {
+        Map<Long, User> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50000; i++) {
+            long id = random.nextInt(5000) + 1;
+            if (random.nextInt(4) == 0) {
+                replica.userRemoved(id);
+                expected.remove(id);
+            } else {
+                User user = new User(id, "login" + id + "-" + random.nextInt(3), "pw", "mail" + id + "@x.com",
+                    random.nextBoolean() ? null : "first", "last", null, id % 3);
+                user.setVersion((long) i);
+                replica.userUpdated(user);
+                expected.put(id, user);
+            }
+        }
+        assertEquals(expected.size(), replica.size());
+        for (long id = 1; id <= 5000; id++) {
+            User user = expected.get(id);
+            if (user == null) {
+                assertNull(replica.findById(id).getId());
+                assertNull(replica.findByEmail("mail" + id + "@x.com").getId());
+            } else {
+                assertSameUser(user, replica.findByLogin(user.getLogin()));
+                assertSameUser(user, replica.findByEmail(user.getEmail()));
+            }
+        }
+    }
+
+    private static void assertSameUser(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getLogin(), actual.getLogin());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getBirthday(), actual.getBirthday());
+        assertEquals(expected.getRoleId(), actual.getRoleId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.domain.UserPatch;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.OptimisticLockException;
+import com.ua.sutty.jdbc.repository.UserWriteListener;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GroupCommitterTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private BasicDataSource basicDataSource;
+    private JdbcUserDao userDao;
+    private GroupCommitter committer;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(resourceBundle.getString("jdbc.url"));
+        basicDataSource.setUsername(resourceBundle.getString("jdbc.username"));
+        basicDataSource.setPassword(resourceBundle.getString("jdbc.password"));
+        userDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+    }
+
+    @After
+    public void closeDataSource() throws Exception {
+        if (committer != null) {
+            committer.close();
+        }
+        basicDataSource.close();
+    }
+
+    @Test
+    public void testConcurrentCreatesShareCommits() throws Exception {
+        committer = new GroupCommitter(basicDataSource, 64, 200, TimeUnit.MILLISECONDS);
+        GroupCommitUserDao groupDao = new GroupCommitUserDao(userDao, committer);
+        int writers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Long>> ids = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                User user = user("grouped" + i);
+                ids.add(executor.submit(() -> {
+                    start.await();
+                    return groupDao.create(user);
+                }));
+            }
+            start.countDown();
+            for (Future<Long> id : ids) {
+                assertNotNull(id.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < writers; i++) {
+            assertNotNull(userDao.findByLogin("grouped" + i).getId());
+        }
+        assertEquals(writers, committer.getWriteCount());
+        assertTrue(committer.getGroupCount() < writers);
+    }
+
+    @Test
+    public void testFailedWriteDoesNotFailItsGroup() throws Exception {
+        committer = new GroupCommitter(basicDataSource, 3, 10, TimeUnit.SECONDS);
+        CompletableFuture<Long> first = committer.submit(() -> userDao.create(user("before")));
+        CompletableFuture<Long> duplicate = committer.submit(() -> userDao.create(user("firstUser")));
+        CompletableFuture<Long> last = committer.submit(() -> userDao.create(user("after")));
+
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        assertNotNull(last.get(10, TimeUnit.SECONDS));
+        try {
+            duplicate.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, committer.getGroupCount());
+        assertEquals(1, committer.getFailureCount());
+        assertNotNull(userDao.findByLogin("before").getId());
+        assertNotNull(userDao.findByLogin("after").getId());
+    }
+
+    @Test
+    public void testListenerSeesOnlyCommittedWrites() throws Exception {
+        committer = new GroupCommitter(basicDataSource, 3, 10, TimeUnit.SECONDS);
+        List<String> created = Collections.synchronizedList(new ArrayList<>());
+        userDao.setWriteListener(new CreatedLogins(created));
+        User before = user("before");
+        User undone = user("undone");
+        CompletableFuture<Integer> first = committer.submit(() -> {
+            userDao.create(before);
+            return created.size();
+        });
+        CompletableFuture<Long> failed = committer.submit(() -> {
+            userDao.create(undone);
+            throw new IllegalArgumentException();
+        });
+        CompletableFuture<Long> last = committer.submit(() -> userDao.create(user("after")));
+
+        assertEquals(Integer.valueOf(0), first.get(10, TimeUnit.SECONDS));
+        assertNotNull(last.get(10, TimeUnit.SECONDS));
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(Arrays.asList("before", "after"), created);
+        assertNotNull(before.getId());
+        assertNull(undone.getId());
+        assertNull(undone.getVersion());
+    }
+
+    @Test
+    public void testWriteExceptionIsRethrown() {
+        committer = new GroupCommitter(basicDataSource, 16, 0, TimeUnit.MILLISECONDS);
+        GroupCommitUserDao groupDao = new GroupCommitUserDao(userDao, committer);
+        User user = userDao.findByLogin("firstUser");
+        User stale = new User(user);
+        user.setFirstName("fresh");
+        groupDao.update(user);
+        stale.setFirstName("stale");
+        try {
+            groupDao.update(stale);
+            fail();
+        } catch (OptimisticLockException expected) {
+            assertEquals("fresh", userDao.findByLogin("firstUser").getFirstName());
+        }
+    }
+
+    @Test
+    public void testWriteInsideUnitOfWorkJoinsIt() {
+        committer = new GroupCommitter(basicDataSource, 16, 0, TimeUnit.MILLISECONDS);
+        GroupCommitUserDao groupDao = new GroupCommitUserDao(userDao, committer);
+        try {
+            new TransactionTemplate(basicDataSource).execute(context -> {
+                groupDao.create(user("joined"));
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertNull(userDao.findByLogin("joined").getId());
+            assertEquals(0, committer.getWriteCount());
+        }
+    }
+
+    @Test
+    public void testCloseCommitsQueuedAndRejectsNew() throws Exception {
+        committer = new GroupCommitter(basicDataSource, 16, 10, TimeUnit.SECONDS);
+        CompletableFuture<Long> queued = committer.submit(() -> userDao.create(user("queued")));
+        committer.close();
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+        try {
+            committer.submit(() -> userDao.create(user("late"))).join();
+            fail();
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertNull(userDao.findByLogin("late").getId());
+    }
+
+    private static User user(String login) {
+        return new User(login, "123", login + "@gmail.com", "first", "last", Date.valueOf("1990-01-01"), 1L);
+    }
+
+    private static final class CreatedLogins implements UserWriteListener {
+
+        private final List<String> logins;
+
+        CreatedLogins(List<String> logins) {
+            this.logins = logins;
+        }
+
+        @Override
+        public void userCreated(User user) {
+            logins.add(user.getLogin());
+        }
+
+        @Override
+        public void userUpdated(User user) {
+        }
+
+        @Override
+        public void userPatched(UserPatch patch) {
+        }
+
+        @Override
+        public void userRemoved(Long id) {
+        }
+
+        @Override
+        public void roleRemoved(Long roleId) {
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.ua.sutty.jdbc.repository.transaction;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.DataSourceFactory;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.dbunit.IDatabaseTester;
+import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransactionTemplateTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final String SQL_DATABASE = "test";
+
+    private BasicDataSource basicDataSource;
+    private JdbcUserDao userDao;
+    private JdbcRoleDao roleDao;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeClass
+    public static void createSchema() {
+        new SchemaMigrator(DataSourceFactory.getDataSource(SQL_DATABASE)).migrate();
+    }
+
+    @Before
+    public void importDataSet() throws Exception {
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(SQL_DATABASE);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new File(SQL_DATA_SET));
+        IDatabaseTester databaseTester = new JdbcDatabaseTester(resourceBundle.getString("jdbc.driver"),
+            resourceBundle.getString("jdbc.url"), resourceBundle.getString("jdbc.username"),
+            resourceBundle.getString("jdbc.password"));
+        databaseTester.setSetUpOperation(DatabaseOperation.CLEAN_INSERT);
+        databaseTester.setDataSet(dataSet);
+        databaseTester.onSetup();
+
+        basicDataSource = new BasicDataSource();
+        basicDataSource.setUrl(resourceBundle.getString("jdbc.url"));
+        basicDataSource.setUsername(resourceBundle.getString("jdbc.username"));
+        basicDataSource.setPassword(resourceBundle.getString("jdbc.password"));
+        userDao = new JdbcUserDao(basicDataSource, SQL_DATABASE);
+        roleDao = new JdbcRoleDao(basicDataSource, SQL_DATABASE);
+        transactionTemplate = new TransactionTemplate(basicDataSource);
+    }
+
+    @After
+    public void closeDataSource() throws Exception {
+        basicDataSource.close();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testExecuteNull() {
+        transactionTemplate.execute(null);
+    }
+
+    @Test
+    public void testDaoCallsShareOneConnection() {
+        User updated = transactionTemplate.execute(context -> {
+            Connection first = userDao.createConnection();
+            assertSame(first, roleDao.createConnection());
+            assertEquals(1, basicDataSource.getNumActive());
+
+            User user = userDao.findByLogin("firstUser");
+            user.setRoleId(roleDao.findByName("ADMIN").getId());
+            userDao.update(user);
+            userDao.findByLogin("secondUser");
+            assertEquals(3, context.getCachedStatementCount());
+            return user;
+        });
+        assertEquals(0, basicDataSource.getNumActive());
+        assertEquals(Long.valueOf(2), updated.getRoleId());
+        assertEquals(Long.valueOf(2), userDao.findByLogin("firstUser").getRoleId());
+    }
+
+    @Test
+    public void testCallbackExceptionRollsBack() {
+        try {
+            transactionTemplate.execute(context -> {
+                userDao.create(new User("uncommitted", "123", "uncommitted@gmail.com", "un", "committed",
+                    new Date(System.currentTimeMillis()), 1L));
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertNull(userDao.findByLogin("uncommitted").getId());
+        }
+    }
+
+    @Test
+    public void testFailedStatementRollsBackUnitOfWork() {
+        try {
+            transactionTemplate.execute(context -> {
+                roleDao.update(new Role(1L, "renamed"));
+                roleDao.update(new Role(2L, "MANAGER"));
+                return null;
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals(Long.valueOf(1), roleDao.findByName("USER").getId());
+            assertNull(roleDao.findByName("renamed").getId());
+        }
+    }
+
+    @Test
+    public void testSynchronizationsFollowOutcome() {
+        List<String> events = new ArrayList<>();
+        transactionTemplate.execute(context -> {
+            context.afterCommit(() -> events.add("committed"));
+            context.afterRollback(() -> events.add("rolled back"));
+            assertTrue(events.isEmpty());
+            return null;
+        });
+        assertEquals(Collections.singletonList("committed"), events);
+        events.clear();
+        try {
+            transactionTemplate.execute(context -> {
+                context.afterCommit(() -> events.add("committed"));
+                context.afterRollback(() -> events.add("rolled back"));
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(Collections.singletonList("rolled back"), events);
+        }
+    }
+
+    @Test
+    public void testRollbackRestoresIdsAndVersions() {
+        User created = new User("uncommitted", "123", "uncommitted@gmail.com", "un", "committed",
+            new Date(System.currentTimeMillis()), 1L);
+        User updated = userDao.findByLogin("firstUser");
+        Long version = updated.getVersion();
+        try {
+            transactionTemplate.execute(context -> {
+                userDao.create(created);
+                updated.setFirstName("changed");
+                userDao.update(updated);
+                assertEquals(Long.valueOf(version + 1), updated.getVersion());
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertNull(created.getId());
+            assertNull(created.getVersion());
+            assertEquals(version, updated.getVersion());
+        }
+        userDao.update(updated);
+        assertEquals("changed", userDao.findByLogin("firstUser").getFirstName());
+    }
+
+    @Test
+    public void testNestedExecuteJoins() {
+        transactionTemplate.execute(outer -> transactionTemplate.execute(inner -> {
+            assertSame(outer, inner);
+            return null;
+        }));
+    }
+
+    @Test
+    public void testConnectionOutsideUnitOfWorkIsNotBound() throws Exception {
+        transactionTemplate.execute(context -> null);
+        try (Connection connection = userDao.createConnection()) {
+            assertFalse(connection.getAutoCommit());
+            assertEquals(1, basicDataSource.getNumActive());
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.ua.sutty.jdbc.repository.transfer;
+
+import com.ua.sutty.jdbc.domain.Role;
+import com.ua.sutty.jdbc.domain.User;
+import com.ua.sutty.jdbc.repository.impl.JdbcRoleDao;
+import com.ua.sutty.jdbc.repository.impl.JdbcUserDao;
+import com.ua.sutty.jdbc.repository.migration.SchemaMigrator;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JdbcDataTransferTest {
+
+    private static final String SQL_DATA_SET = "src/main/resources/dataset.xml";
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final List<BasicDataSource> dataSources = new ArrayList<>();
+    private BasicDataSource source;
+
+    @Before
+    public void seedSource() {
+        source = database();
+        new JdbcRoleDao(source, null).createAll(Arrays.asList(new Role("USER"), new Role("ADMIN, \"root\"")));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            users.add(new User("user" + i, "123", "user" + i + "@email.com", "first" + i, "last" + i,
+                Date.valueOf("1990-01-01"), i % 2 + 1L));
+        }
+        users.add(new User("tricky", "", "tricky@email.com", "line\nbreak, \"quoted\"", null, null, 2L));
+        users.add(new User("unicode", "p\u00e4ss", "unicode@email.com", "\u0416\u0435\u043d\u044f", "\u00d8", null, 1L));
+        JdbcUserDao userDao = new JdbcUserDao(source, null);
+        userDao.createAll(users);
+        userDao.remove(users.get(3));
+        User updated = users.get(4);
+        updated.setLastName("updated");
+        userDao.update(updated);
+    }
+
+    @After
+    public void dropDatabases() throws SQLException {
+        for (BasicDataSource dataSource : dataSources) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws Exception {
+        assertRoundTrip(TransferFormat.CSV);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        assertRoundTrip(TransferFormat.BINARY);
+    }
+
+    @Test
+    public void testFlatXmlRoundTrip() throws Exception {
+        byte[] exported = assertRoundTrip(TransferFormat.FLAT_XML);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().setColumnSensing(true)
+            .build(new ByteArrayInputStream(exported));
+        assertEquals(2, dataSet.getTable("role").getRowCount());
+        assertEquals(26, dataSet.getTable("user").getRowCount());
+    }
+
+    @Test
+    public void testImportDbUnitDataSet() throws Exception {
+        BasicDataSource target = database();
+        JdbcDataTransfer transfer = new JdbcDataTransfer(target, null);
+        try (FileChannel channel = FileChannel.open(Paths.get(SQL_DATA_SET))) {
+            assertEquals(6, transfer.importFrom(channel, TransferFormat.FLAT_XML));
+        }
+        User user = new JdbcUserDao(target, null).findByLogin("firstUser");
+        assertEquals(Long.valueOf(1), user.getId());
+        assertEquals(Date.valueOf("1999-04-06"), user.getBirthday());
+        assertEquals(Long.valueOf(0), user.getVersion());
+        assertEquals(Long.valueOf(2), new JdbcRoleDao(target, null).findByName("ADMIN").getId());
+    }
+
+    @Test
+    public void testTruncatedImportKeepsCommittedRecords() throws Exception {
+        byte[] exported = export(TransferFormat.BINARY);
+        BasicDataSource target = database();
+        JdbcDataTransfer transfer = new JdbcDataTransfer(target, null);
+        transfer.setBatchSize(4);
+        transfer.setCommitInterval(10);
+        try {
+            transfer.importFrom(Channels.newChannel(new ByteArrayInputStream(exported, 0, exported.length - 40)),
+                TransferFormat.BINARY);
+            fail();
+        } catch (IOException expected) {
+            assertEquals(18, new JdbcUserDao(target, null).findAll().size());
+        }
+    }
+
+    private byte[] assertRoundTrip(TransferFormat format) throws Exception {
+        byte[] exported = export(format);
+        BasicDataSource target = database();
+        assertEquals(28, new JdbcDataTransfer(target, null)
+            .importFrom(Channels.newChannel(new ByteArrayInputStream(exported)), format));
+
+        JdbcUserDao sourceUsers = new JdbcUserDao(source, null);
+        JdbcUserDao targetUsers = new JdbcUserDao(target, null);
+        List<User> expected = sourceUsers.findAll();
+        List<User> actual = targetUsers.findAll();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameUser(expected.get(i), actual.get(i));
+        }
+        Role role = new JdbcRoleDao(target, null).findByName("ADMIN, \"root\"");
+        assertEquals(Long.valueOf(2), role.getId());
+        assertEquals("", targetUsers.findByLogin("tricky").getPassword());
+        assertNull(targetUsers.findByLogin("tricky").getLastName());
+        assertEquals(Long.valueOf(1), targetUsers.findByLogin("user4").getVersion());
+
+        User created = new User("afterImport", "123", "afterImport@email.com", "after", "import", null, 1L);
+        targetUsers.create(created);
+        assertTrue(created.getId() > expected.get(expected.size() - 1).getId());
+        return exported;
+    }
+
+    private byte[] export(TransferFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(28, new JdbcDataTransfer(source, null).exportTo(Channels.newChannel(out), format));
+        return out.toByteArray();
+    }
+
+    private static void assertSameUser(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getLogin(), actual.getLogin());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getBirthday(), actual.getBirthday());
+        assertEquals(expected.getRoleId(), actual.getRoleId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    private BasicDataSource database() {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:transfer" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(dataSource).migrate();
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+}